@@ -0,0 +1,149 @@
+package com.getkeepsafe.taptargetviewsample;
+
+import android.app.Activity;
+import android.os.Build;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.view.ViewCompat;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import com.getkeepsafe.taptargetview.TapTargetItemDecoration;
+
+/**
+ * Scrolls a long list at a constant speed, first plain and then with every row highlighted by a
+ * {@link TapTargetItemDecoration}, and compares the frame statistics of both runs.
+ * <p>
+ * Start it with {@code adb shell am start -n com.getkeepsafe.taptargetviewsample/.MainActivity
+ * --ez badgeListBenchmark true}. Requires API 16+.
+ */
+class BadgeListBenchmark {
+    static final String EXTRA_BENCHMARK = "badgeListBenchmark";
+
+    interface Callback {
+        void onBenchmarkFinished(String report);
+    }
+
+    private static final String TAG = "TapTargetViewBadges";
+    private static final int ITEMS = 500;
+    private static final int FRAMES_PER_RUN = 600;
+    private static final int SCROLL_PER_FRAME_DP = 12;
+
+    private final Activity activity;
+    private final ViewGroup container;
+    private final Callback callback;
+    private final StringBuilder report = new StringBuilder();
+
+    private RecyclerView list;
+    private TapTargetItemDecoration decoration;
+    private FrameStats frameStats;
+    private int framesLeft;
+    private boolean decorated;
+    private int scrollPerFrame;
+
+    BadgeListBenchmark(Activity activity, ViewGroup container, Callback callback) {
+        this.activity = activity;
+        this.container = container;
+        this.callback = callback;
+    }
+
+    void start() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            callback.onBenchmarkFinished("Requires API 16+");
+            return;
+        }
+
+        scrollPerFrame = (int) (SCROLL_PER_FRAME_DP * activity.getResources().getDisplayMetrics().density);
+        decoration = new TapTargetItemDecoration(activity, new TapTargetItemDecoration.Filter() {
+            @Override
+            public boolean isHighlighted(int adapterPosition) {
+                return true;
+            }
+        }).anchor(android.R.id.icon);
+
+        list = new RecyclerView(activity);
+        list.setLayoutManager(new LinearLayoutManager(activity));
+        list.setAdapter(new Adapter());
+        list.setBackgroundColor(0xFFFFFFFF);
+        container.addView(list, new ViewGroup.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
+        startRun();
+    }
+
+    private void startRun() {
+        list.scrollToPosition(0);
+        framesLeft = FRAMES_PER_RUN;
+        frameStats = new FrameStats();
+        frameStats.start();
+        ViewCompat.postOnAnimation(list, scrollRunnable);
+    }
+
+    private final Runnable scrollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (--framesLeft > 0) {
+                if (!list.canScrollVertically(1)) {
+                    list.scrollToPosition(0);
+                } else {
+                    list.scrollBy(0, scrollPerFrame);
+                }
+                ViewCompat.postOnAnimation(list, this);
+                return;
+            }
+
+            frameStats.stop();
+            report.append(decorated ? "Highlighted: " : "Plain: ").append(frameStats.summary());
+
+            if (!decorated) {
+                decorated = true;
+                list.addItemDecoration(decoration);
+                startRun();
+                return;
+            }
+
+            list.removeItemDecoration(decoration);
+            container.removeView(list);
+            Log.i(TAG, report.toString());
+            callback.onBenchmarkFinished(report.toString());
+        }
+    };
+
+    private static class Adapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            final int padding = (int) (16 * parent.getResources().getDisplayMetrics().density);
+            final LinearLayout row = new LinearLayout(parent.getContext());
+            row.setGravity(Gravity.CENTER_VERTICAL);
+            row.setPadding(padding, padding, padding, padding);
+
+            final ImageView icon = new ImageView(parent.getContext());
+            icon.setId(android.R.id.icon);
+            icon.setImageDrawable(ContextCompat.getDrawable(parent.getContext(), R.drawable.ic_android_black_24dp));
+            row.addView(icon);
+
+            final TextView text = new TextView(parent.getContext());
+            text.setId(android.R.id.text1);
+            text.setPadding(padding, 0, 0, 0);
+            row.addView(text);
+
+            return new RecyclerView.ViewHolder(row) {
+            };
+        }
+
+        @Override
+        public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+            ((TextView) holder.itemView.findViewById(android.R.id.text1)).setText("New feature " + (position + 1));
+        }
+
+        @Override
+        public int getItemCount() {
+            return ITEMS;
+        }
+    }
+}
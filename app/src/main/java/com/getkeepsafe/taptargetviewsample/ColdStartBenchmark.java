@@ -0,0 +1,126 @@
+package com.getkeepsafe.taptargetviewsample;
+
+import android.app.Activity;
+import android.support.v4.view.ViewCompat;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import com.getkeepsafe.taptargetview.TapTarget;
+import com.getkeepsafe.taptargetview.TapTargetView;
+
+import java.util.Locale;
+
+/**
+ * Measures how long the first prompt of the process takes to appear, then does the same for a
+ * second one to compare cold and warm costs. Each run is split into constructing and adding the
+ * view, its first layout and its first drawn frame. Finer stages show up as TapTargetView trace
+ * sections when capturing a systrace.
+ * <p>
+ * Start it in a fresh process with {@code adb shell am force-stop
+ * com.getkeepsafe.taptargetviewsample && adb shell am start -n
+ * com.getkeepsafe.taptargetviewsample/.MainActivity --ez coldStartBenchmark true}, and add
+ * {@code --ez warmUp true} to call {@link TapTargetView#warmUp} first.
+ */
+class ColdStartBenchmark {
+    static final String EXTRA_BENCHMARK = "coldStartBenchmark";
+    static final String EXTRA_WARM_UP = "warmUp";
+
+    interface Callback {
+        void onBenchmarkFinished(String report);
+    }
+
+    private static final String TAG = "TapTargetViewColdStart";
+    private static final String[] STAGES = {"showFor", "layout", "firstFrame"};
+
+    private final Activity activity;
+    private final View view;
+    private final boolean warmUp;
+    private final Callback callback;
+
+    // Nanoseconds spent in each stage, for the cold and the warm run
+    private final long[][] timings = new long[2][STAGES.length];
+    private long warmUpTime;
+    private int run;
+
+    ColdStartBenchmark(Activity activity, View view, boolean warmUp, Callback callback) {
+        this.activity = activity;
+        this.view = view;
+        this.warmUp = warmUp;
+        this.callback = callback;
+    }
+
+    void start() {
+        if (warmUp) {
+            final long start = System.nanoTime();
+            TapTargetView.warmUp(activity);
+            warmUpTime = System.nanoTime() - start;
+        }
+
+        showPrompt();
+    }
+
+    private void showPrompt() {
+        final long[] stages = timings[run];
+        final long start = System.nanoTime();
+        final TapTargetView prompt = TapTargetView.showFor(activity,
+                TapTarget.forView(view, "Benchmark", "Run " + (run + 1), null),
+                new TapTargetView.Listener() {
+                    @Override
+                    public void onTargetDismissed(TapTargetView view, boolean userInitiated) {
+                        onRunFinished();
+                    }
+                });
+        final long added = System.nanoTime();
+        stages[0] = added - start;
+
+        // Registered after the prompt's own listener, so this runs once the prompt is laid out
+        prompt.getViewTreeObserver().addOnGlobalLayoutListener(new ViewTreeObserver.OnGlobalLayoutListener() {
+            @Override
+            public void onGlobalLayout() {
+                if (stages[1] == 0) {
+                    stages[1] = System.nanoTime() - added;
+                }
+            }
+        });
+
+        ViewCompat.postOnAnimation(prompt, new Runnable() {
+            @Override
+            public void run() {
+                if (prompt.getFramesRendered() == 0) {
+                    ViewCompat.postOnAnimation(prompt, this);
+                    return;
+                }
+
+                stages[2] = System.nanoTime() - added - stages[1];
+                prompt.dismiss(false);
+            }
+        });
+    }
+
+    private void onRunFinished() {
+        if (++run < timings.length) {
+            showPrompt();
+            return;
+        }
+
+        final StringBuilder report = new StringBuilder();
+        if (warmUp) {
+            report.append(String.format(Locale.US, "warmUp: %.2f ms%n", warmUpTime / 1e6));
+        }
+
+        report.append(String.format(Locale.US, "%-12s %10s %10s%n", "stage", "cold (ms)", "warm (ms)"));
+        long cold = 0;
+        long warm = 0;
+        for (int i = 0; i < STAGES.length; ++i) {
+            report.append(String.format(Locale.US, "%-12s %10.2f %10.2f%n",
+                    STAGES[i], timings[0][i] / 1e6, timings[1][i] / 1e6));
+            cold += timings[0][i];
+            warm += timings[1][i];
+        }
+        report.append(String.format(Locale.US, "%-12s %10.2f %10.2f%n", "total", cold / 1e6, warm / 1e6));
+
+        Log.i(TAG, report.toString());
+        callback.onBenchmarkFinished(report.toString());
+    }
+}
@@ -0,0 +1,59 @@
+package com.getkeepsafe.taptargetviewsample;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.util.Locale;
+
+/** Counts the frames drawn between {@link #start()} and {@link #stop()}, and how many of them were late **/
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameStats implements Choreographer.FrameCallback {
+    // A frame that took longer than one and a half vsync intervals at 60Hz
+    private static final long JANK_NANOS = 25000000L;
+
+    private boolean running;
+    private long lastFrameNanos;
+    private long frames;
+    private long jankyFrames;
+    private long maxFrameNanos;
+    private long totalFrameNanos;
+
+    void start() {
+        running = true;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        running = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!running) return;
+
+        if (lastFrameNanos != 0) {
+            final long interval = frameTimeNanos - lastFrameNanos;
+            frames++;
+            totalFrameNanos += interval;
+            maxFrameNanos = Math.max(maxFrameNanos, interval);
+            if (interval > JANK_NANOS) {
+                jankyFrames++;
+            }
+        }
+
+        lastFrameNanos = frameTimeNanos;
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    String summary() {
+        if (frames == 0) {
+            return "Frames: none\n";
+        }
+
+        return String.format(Locale.US, "Frames: %d, avg %.2f ms, max %.2f ms, janky %d (%.1f%%)%n",
+                frames, totalFrameNanos / (frames * 1e6), maxFrameNanos / 1e6,
+                jankyFrames, jankyFrames * 100f / frames);
+    }
+}
@@ -14,6 +14,7 @@ import android.text.style.StyleSpan;
 import android.text.style.UnderlineSpan;
 import android.util.Log;
 import android.view.Display;
+import android.view.ViewGroup;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -22,6 +23,8 @@ import com.getkeepsafe.taptargetview.TapTargetSequence;
 import com.getkeepsafe.taptargetview.TapTargetView;
 
 public class MainActivity extends AppCompatActivity {
+    private StressMode stressMode;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -31,6 +34,36 @@ public class MainActivity extends AppCompatActivity {
         toolbar.inflateMenu(R.menu.menu_main);
         toolbar.setNavigationIcon(ContextCompat.getDrawable(this, R.drawable.ic_arrow_back_white_24dp));
 
+        // Measure the first prompt of the process instead of showing the tutorial when asked to
+        if (getIntent().getBooleanExtra(ColdStartBenchmark.EXTRA_BENCHMARK, false)) {
+            new ColdStartBenchmark(this, findViewById(R.id.fab),
+                    getIntent().getBooleanExtra(ColdStartBenchmark.EXTRA_WARM_UP, false),
+                    new ColdStartBenchmark.Callback() {
+                @Override
+                public void onBenchmarkFinished(String report) {
+                    ((TextView) findViewById(R.id.educated)).setText(report);
+                }
+            }).start();
+            return;
+        }
+
+        if (getIntent().getBooleanExtra(ToolbarLookupBenchmark.EXTRA_BENCHMARK, false)) {
+            final String report = new ToolbarLookupBenchmark(this, (ViewGroup) findViewById(android.R.id.content)).run();
+            ((TextView) findViewById(R.id.educated)).setText(report);
+            return;
+        }
+
+        if (getIntent().getBooleanExtra(BadgeListBenchmark.EXTRA_BENCHMARK, false)) {
+            new BadgeListBenchmark(this, (ViewGroup) findViewById(android.R.id.content),
+                    new BadgeListBenchmark.Callback() {
+                @Override
+                public void onBenchmarkFinished(String report) {
+                    ((TextView) findViewById(R.id.educated)).setText(report);
+                }
+            }).start();
+            return;
+        }
+
         // We load a drawable and create a location to show a tap target here
         // We need the display to get the width and height at this point in time
         final Display display = getWindowManager().getDefaultDisplay();
@@ -41,6 +74,20 @@ public class MainActivity extends AppCompatActivity {
         // Using deprecated methods makes you look way cool
         droidTarget.offset(display.getWidth() / 2, display.getHeight() / 2);
 
+        // Soak the library instead of showing the tutorial when asked to
+        final int stressCycles = getIntent().getIntExtra(StressMode.EXTRA_CYCLES, 0);
+        if (stressCycles > 0) {
+            stressMode = new StressMode(this, toolbar, findViewById(R.id.button), droidTarget, droid,
+                    stressCycles, new StressMode.Callback() {
+                @Override
+                public void onStressFinished(String report) {
+                    ((TextView) findViewById(R.id.educated)).setText(report);
+                }
+            });
+            stressMode.start();
+            return;
+        }
+
         final SpannableString sassyDesc = new SpannableString("It allows you to go back, sometimes");
         sassyDesc.setSpan(new StyleSpan(Typeface.ITALIC), sassyDesc.length() - "sometimes".length(), sassyDesc.length(), 0);
 
@@ -129,4 +176,12 @@ public class MainActivity extends AppCompatActivity {
             }
         });
     }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (stressMode != null) {
+            stressMode.stop();
+        }
+    }
 }
@@ -0,0 +1,334 @@
+package com.getkeepsafe.taptargetviewsample;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.v7.widget.Toolbar;
+import android.util.Log;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.getkeepsafe.taptargetview.TapTarget;
+import com.getkeepsafe.taptargetview.TapTargetSequence;
+import com.getkeepsafe.taptargetview.TapTargetView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.WeakHashMap;
+
+/**
+ * Repeatedly shows single, overlapping and sequenced tap targets and drives them to completion
+ * with synthetic taps and back presses. Once all cycles are done a report with heap growth, frame
+ * statistics and leaked objects is logged and handed to the given callback.
+ * <p>
+ * Start it with {@code adb shell am start -n com.getkeepsafe.taptargetviewsample/.MainActivity
+ * --ei stressCycles 2000}, or by building {@link MainActivity} with that extra under Robolectric.
+ */
+class StressMode {
+    static final String EXTRA_CYCLES = "stressCycles";
+
+    interface Callback {
+        void onStressFinished(String report);
+    }
+
+    private static final String TAG = "TapTargetViewStress";
+
+    // Long enough for the 250ms reveal delay and the 250ms expand animation
+    private static final long DRIVE_INTERVAL = 600;
+    private static final long SETTLE_DELAY = 1000;
+    private static final int SAMPLE_INTERVAL = 100;
+
+    private final Activity activity;
+    private final Toolbar toolbar;
+    private final View view;
+    private final Rect bounds;
+    private final Drawable icon;
+    private final int cycles;
+    private final Callback callback;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final WeakHashMap<TapTargetView, TapTarget> tappable = new WeakHashMap<>();
+    private final WeakHashMap<TapTargetView, Long> framesSeen = new WeakHashMap<>();
+    private final List<WeakReference<TapTargetView>> views = new ArrayList<>();
+    private final List<WeakReference<TapTarget>> targets = new ArrayList<>();
+    private final List<WeakReference<Bitmap>> bitmaps = new ArrayList<>();
+    private final int[] location = new int[2];
+
+    private FrameStats frameStats;
+    private boolean running;
+    private int cycle;
+    private int pending;
+    private long promptFrames;
+    private long startTime;
+    private long startHeap;
+    private long startNativeHeap;
+    private long peakHeap;
+
+    private final Runnable driveRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!running) return;
+            drive();
+            handler.postDelayed(this, DRIVE_INTERVAL);
+        }
+    };
+
+    private final Runnable nextCycleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            nextCycle();
+        }
+    };
+
+    private final Runnable finishRunnable = new Runnable() {
+        @Override
+        public void run() {
+            finish();
+        }
+    };
+
+    private final TapTargetView.Listener cycleListener = new TapTargetView.Listener() {
+        @Override
+        public void onTargetDismissed(TapTargetView view, boolean userInitiated) {
+            onCycleStepDone();
+        }
+    };
+
+    private final TapTargetSequence.Listener sequenceListener = new TapTargetSequence.Listener() {
+        @Override
+        public void onSequenceFinish() {
+            onCycleStepDone();
+        }
+
+        @Override
+        public void onSequenceStep(TapTarget lastTarget, boolean targetClicked) {
+        }
+
+        @Override
+        public void onSequenceCanceled(TapTarget lastTarget) {
+            onCycleStepDone();
+        }
+    };
+
+    StressMode(Activity activity, Toolbar toolbar, View view, Rect bounds, Drawable icon,
+               int cycles, Callback callback) {
+        this.activity = activity;
+        this.toolbar = toolbar;
+        this.view = view;
+        this.bounds = bounds;
+        this.icon = icon;
+        this.cycles = cycles;
+        this.callback = callback;
+    }
+
+    void start() {
+        if (running) {
+            throw new IllegalStateException("Stress mode is already running");
+        }
+
+        running = true;
+        cycle = 0;
+        startTime = SystemClock.uptimeMillis();
+        startHeap = usedHeapAfterGc();
+        startNativeHeap = Debug.getNativeHeapAllocatedSize();
+        peakHeap = startHeap;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            frameStats = new FrameStats();
+            frameStats.start();
+        }
+
+        Log.i(TAG, "Starting " + cycles + " cycles");
+        handler.postDelayed(driveRunnable, DRIVE_INTERVAL);
+        nextCycle();
+    }
+
+    void stop() {
+        running = false;
+        handler.removeCallbacks(driveRunnable);
+        handler.removeCallbacks(nextCycleRunnable);
+        handler.removeCallbacks(finishRunnable);
+        if (frameStats != null) {
+            frameStats.stop();
+        }
+    }
+
+    private void nextCycle() {
+        if (!running) return;
+
+        if (cycle == cycles) {
+            handler.removeCallbacks(driveRunnable);
+            // Let the last dismiss animations play out before looking for leftovers
+            handler.postDelayed(finishRunnable, SETTLE_DELAY);
+            return;
+        }
+
+        if (cycle % SAMPLE_INTERVAL == 0 && cycle > 0) {
+            final long sampledHeap = usedHeapAfterGc();
+            peakHeap = Math.max(peakHeap, sampledHeap);
+            Log.i(TAG, String.format(Locale.US, "Cycle %d: heap %d KB (%+d KB)",
+                    cycle, sampledHeap / 1024, (sampledHeap - startHeap) / 1024));
+        }
+
+        switch (cycle++ % 3) {
+            case 0:
+                // A single prompt over a view
+                pending = 1;
+                show(viewTarget());
+                break;
+            case 1:
+                // Two prompts on screen at the same time
+                pending = 2;
+                show(viewTarget());
+                show(boundsTarget());
+                break;
+            default:
+                // Every toolbar target followed by a bounds target, cancelled one by one
+                pending = 1;
+                new TapTargetSequence(activity)
+                        .targets(
+                                track(TapTarget.forToolbarNavigationIcon(toolbar, "Navigation")),
+                                track(TapTarget.forToolbarMenuItem(toolbar, R.id.search, "Search")),
+                                track(TapTarget.forToolbarOverflow(toolbar, "Overflow")),
+                                boundsTarget())
+                        .continueOnCancel(true)
+                        .listener(sequenceListener)
+                        .start();
+                break;
+        }
+    }
+
+    private void show(TapTarget target) {
+        final TapTargetView prompt = TapTargetView.showFor(activity, target, cycleListener);
+        tappable.put(prompt, target);
+        views.add(new WeakReference<>(prompt));
+    }
+
+    private TapTarget viewTarget() {
+        return track(TapTarget.forView(view, "View", "Stress cycle " + cycle, null));
+    }
+
+    private TapTarget boundsTarget() {
+        final Bitmap bitmap = Bitmap.createBitmap(
+                icon.getIntrinsicWidth(), icon.getIntrinsicHeight(), Bitmap.Config.ARGB_8888);
+        icon.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
+        icon.draw(new Canvas(bitmap));
+        bitmaps.add(new WeakReference<>(bitmap));
+
+        return track(TapTarget.forBounds(new Rect(bounds), "Bounds", "Stress cycle " + cycle, null)
+                .icon(new BitmapDrawable(activity.getResources(), bitmap)));
+    }
+
+    private TapTarget track(TapTarget target) {
+        targets.add(new WeakReference<>(target));
+        return target;
+    }
+
+    private void onCycleStepDone() {
+        if (--pending == 0) {
+            handler.post(nextCycleRunnable);
+        }
+    }
+
+    /** Taps every visible prompt shown by {@link #show} and presses back on the rest **/
+    private void drive() {
+        final ViewGroup decor = (ViewGroup) activity.getWindow().getDecorView();
+        for (int i = decor.getChildCount() - 1; i >= 0; --i) {
+            final View child = decor.getChildAt(i);
+            if (!(child instanceof TapTargetView)) continue;
+
+            final TapTargetView prompt = (TapTargetView) child;
+            if (!prompt.isVisible()) continue;
+
+            final TapTarget target = tappable.get(prompt);
+            final Long seen = framesSeen.get(prompt);
+            if (seen == null && target == null) {
+                // Shown by a sequence, so this is the first time we get a hold of it
+                views.add(new WeakReference<>(prompt));
+            }
+            promptFrames += prompt.getFramesRendered() - (seen == null ? 0 : seen);
+            framesSeen.put(prompt, prompt.getFramesRendered());
+
+            if (target != null) {
+                tap(prompt, target.bounds());
+            } else {
+                pressBack(prompt);
+            }
+        }
+    }
+
+    private void tap(TapTargetView prompt, Rect targetBounds) {
+        prompt.getLocationOnScreen(location);
+        final float x = targetBounds.centerX() - location[0];
+        final float y = targetBounds.centerY() - location[1];
+        final long now = SystemClock.uptimeMillis();
+
+        final MotionEvent down = MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, x, y, 0);
+        final MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, x, y, 0);
+        prompt.dispatchTouchEvent(down);
+        prompt.dispatchTouchEvent(up);
+        down.recycle();
+        up.recycle();
+    }
+
+    private void pressBack(TapTargetView prompt) {
+        prompt.dispatchKeyEvent(new KeyEvent(KeyEvent.ACTION_DOWN, KeyEvent.KEYCODE_BACK));
+        prompt.dispatchKeyEvent(new KeyEvent(KeyEvent.ACTION_UP, KeyEvent.KEYCODE_BACK));
+    }
+
+    private void finish() {
+        stop();
+
+        final long endHeap = usedHeapAfterGc();
+        peakHeap = Math.max(peakHeap, endHeap);
+        final long endNativeHeap = Debug.getNativeHeapAllocatedSize();
+        final long elapsed = SystemClock.uptimeMillis() - startTime;
+
+        final StringBuilder report = new StringBuilder()
+                .append(String.format(Locale.US, "%d cycles in %.1f s%n", cycles, elapsed / 1000f))
+                .append(String.format(Locale.US, "Heap: %d KB -> %d KB (%+d KB, peak %d KB)%n",
+                        startHeap / 1024, endHeap / 1024, (endHeap - startHeap) / 1024, peakHeap / 1024))
+                .append(String.format(Locale.US, "Native heap: %+d KB%n",
+                        (endNativeHeap - startNativeHeap) / 1024))
+                .append(String.format(Locale.US, "Live: %d/%d views, %d/%d targets, %d/%d bitmaps%n",
+                        countLive(views), views.size(), countLive(targets), targets.size(),
+                        countLive(bitmaps), bitmaps.size()))
+                .append(String.format(Locale.US, "Prompt frames drawn: %d%n", promptFrames));
+        if (frameStats != null) {
+            report.append(frameStats.summary());
+        }
+
+        Log.i(TAG, report.toString());
+        callback.onStressFinished(report.toString());
+    }
+
+    private static <T> int countLive(List<WeakReference<T>> references) {
+        int live = 0;
+        for (WeakReference<T> reference : references) {
+            if (reference.get() != null) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    private static long usedHeapAfterGc() {
+        final Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.runFinalization();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
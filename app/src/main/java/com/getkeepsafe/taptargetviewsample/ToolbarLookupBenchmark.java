@@ -0,0 +1,126 @@
+package com.getkeepsafe.taptargetviewsample;
+
+import android.app.Activity;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.widget.Toolbar;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+
+import com.getkeepsafe.taptargetview.TapTarget;
+
+import java.util.Locale;
+
+/**
+ * Times looking up the navigation and overflow buttons of toolbars holding synthetic, deeply
+ * nested custom views. The first lookup on each toolbar searches its hierarchy, while the repeated
+ * ones show what a sequence revisiting the same toolbar pays.
+ * <p>
+ * Start it with {@code adb shell am start -n com.getkeepsafe.taptargetviewsample/.MainActivity
+ * --ez toolbarLookupBenchmark true}.
+ */
+class ToolbarLookupBenchmark {
+    static final String EXTRA_BENCHMARK = "toolbarLookupBenchmark";
+
+    private static final String TAG = "TapTargetViewToolbar";
+    private static final int[] DEPTHS = {1, 8, 32, 64};
+    private static final int SIBLINGS_PER_LEVEL = 4;
+    private static final int TOOLBARS = 20;
+    private static final int REPEATS = 50;
+
+    private final Activity activity;
+    private final ViewGroup container;
+
+    ToolbarLookupBenchmark(Activity activity, ViewGroup container) {
+        this.activity = activity;
+        this.container = container;
+    }
+
+    String run() {
+        final StringBuilder report = new StringBuilder()
+                .append(String.format(Locale.US, "%-6s %8s %14s %14s%n",
+                        "depth", "views", "first (us)", "repeat (us)"));
+
+        for (int depth : DEPTHS) {
+            final Toolbar[] toolbars = new Toolbar[TOOLBARS];
+            for (int i = 0; i < TOOLBARS; ++i) {
+                toolbars[i] = createToolbar(depth);
+                container.addView(toolbars[i]);
+            }
+
+            long first = 0;
+            for (Toolbar toolbar : toolbars) {
+                final long start = System.nanoTime();
+                lookUp(toolbar);
+                first += System.nanoTime() - start;
+            }
+
+            long repeat = 0;
+            for (int r = 0; r < REPEATS; ++r) {
+                for (Toolbar toolbar : toolbars) {
+                    final long start = System.nanoTime();
+                    lookUp(toolbar);
+                    repeat += System.nanoTime() - start;
+                }
+            }
+
+            report.append(String.format(Locale.US, "%-6d %8d %14.1f %14.1f%n",
+                    depth, countViews(toolbars[0]),
+                    first / (TOOLBARS * 1e3), repeat / (TOOLBARS * REPEATS * 1e3)));
+
+            for (Toolbar toolbar : toolbars) {
+                container.removeView(toolbar);
+            }
+        }
+
+        Log.i(TAG, report.toString());
+        return report.toString();
+    }
+
+    private static void lookUp(Toolbar toolbar) {
+        TapTarget.forToolbarNavigationIcon(toolbar, "Navigation");
+        TapTarget.forToolbarOverflow(toolbar, "Overflow");
+    }
+
+    /** Creates a toolbar with a chain of nested layouts of the given depth as its custom view **/
+    private Toolbar createToolbar(int depth) {
+        final Toolbar toolbar = new Toolbar(activity);
+        toolbar.setNavigationIcon(ContextCompat.getDrawable(activity, R.drawable.ic_arrow_back_white_24dp));
+
+        final Menu menu = toolbar.getMenu();
+        for (int i = 0; i < 3; ++i) {
+            menu.add("Item " + i).setShowAsAction(MenuItem.SHOW_AS_ACTION_NEVER);
+        }
+
+        ViewGroup parent = new FrameLayout(activity);
+        toolbar.addView(parent);
+        for (int level = 0; level < depth; ++level) {
+            final LinearLayout child = new LinearLayout(activity);
+            for (int i = 0; i < SIBLINGS_PER_LEVEL; ++i) {
+                final ImageView sibling = new ImageView(activity);
+                sibling.setImageDrawable(ContextCompat.getDrawable(activity, R.drawable.ic_android_black_24dp));
+                child.addView(sibling);
+            }
+            parent.addView(child);
+            parent = child;
+        }
+
+        return toolbar;
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            final ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); ++i) {
+                count += countViews(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+}
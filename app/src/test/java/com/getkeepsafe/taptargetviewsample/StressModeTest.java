@@ -0,0 +1,51 @@
+package com.getkeepsafe.taptargetviewsample;
+
+import android.content.Intent;
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 25)
+public class StressModeTest {
+    private static final int CYCLES = 6;
+    private static final long FRAME_TIME = 16;
+    // Every cycle takes a few drive intervals, so this leaves plenty of room
+    private static final long TIMEOUT = 60000;
+    private static final Pattern LIVE_VIEWS = Pattern.compile("Live: (\\d+)/(\\d+) views");
+
+    @Test
+    public void stressCyclesLeaveNoViewsBehind() {
+        final Intent intent = new Intent(RuntimeEnvironment.application, MainActivity.class)
+                .putExtra(StressMode.EXTRA_CYCLES, CYCLES);
+        final MainActivity activity = Robolectric.buildActivity(MainActivity.class, intent).setup().get();
+        final TextView summary = (TextView) activity.findViewById(R.id.educated);
+
+        final String finished = CYCLES + " cycles";
+        for (long elapsed = 0; elapsed < TIMEOUT; elapsed += FRAME_TIME) {
+            if (summary.getText().toString().startsWith(finished)) break;
+            ShadowLooper.idleMainLooper(FRAME_TIME, TimeUnit.MILLISECONDS);
+        }
+
+        final String report = summary.getText().toString();
+        assertTrue("Stress mode didn't finish: " + report, report.startsWith(finished));
+
+        final Matcher views = LIVE_VIEWS.matcher(report);
+        assertTrue(report, views.find());
+        assertTrue("No prompts were shown: " + report, Integer.parseInt(views.group(2)) > 0);
+        assertEquals("Leaked views: " + report, 0, Integer.parseInt(views.group(1)));
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Measures the bytes allocated by the prompt's per-frame and per-layout math and fails when a
+ * phase exceeds its committed budget.
+ * <p>
+ * Budgets live in {@code allocation-budgets.properties}, keyed by phase name. Run with
+ * {@code ./gradlew :benchmark:checkAllocations}. This only covers {@link PromptGeometry}, the
+ * allocations of actual prompts are checked by the library's {@code AllocationBudgetTest}.
+ */
+public class AllocationBudgetCheck {
+  private static final int WARMUP_RUNS = 10000;
+  private static final int MEASURED_RUNS = 5;
+
+  interface Phase {
+    void run();
+  }
+
+  // Written to by the phases so that their results are not optimized away
+  static long sink;
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      throw new IllegalArgumentException("Usage: AllocationBudgetCheck <budgets.properties>");
+    }
+
+    final Properties budgets = new Properties();
+    final InputStream input = new FileInputStream(args[0]);
+    try {
+      budgets.load(input);
+    } finally {
+      input.close();
+    }
+
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)
+        || !((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+      System.out.println("Thread allocation accounting is not supported by this JVM, skipping");
+      return;
+    }
+    final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    final long overhead = measure(threads, new Phase() {
+      @Override
+      public void run() {
+      }
+    });
+
+    boolean failed = false;
+    for (final Map.Entry<String, Phase> entry : phases().entrySet()) {
+      final String name = entry.getKey();
+      final String budgetValue = budgets.getProperty(name);
+      if (budgetValue == null) {
+        throw new IllegalStateException("No allocation budget committed for phase " + name);
+      }
+
+      final long budget = Long.parseLong(budgetValue.trim());
+      final long allocated = Math.max(0, measure(threads, entry.getValue()) - overhead);
+      final boolean overBudget = allocated > budget;
+      failed |= overBudget;
+      System.out.println(String.format("%-24s %8d bytes (budget %d)%s",
+          name, allocated, budget, overBudget ? "  OVER BUDGET" : ""));
+    }
+
+    if (failed) {
+      System.exit(1);
+    }
+  }
+
+  /** Returns the fewest bytes allocated across several runs of the given phase **/
+  static long measure(com.sun.management.ThreadMXBean threads, Phase phase) {
+    final long threadId = Thread.currentThread().getId();
+    for (int i = 0; i < WARMUP_RUNS; ++i) {
+      phase.run();
+    }
+
+    long fewest = Long.MAX_VALUE;
+    for (int i = 0; i < MEASURED_RUNS; ++i) {
+      final long before = threads.getThreadAllocatedBytes(threadId);
+      phase.run();
+      final long after = threads.getThreadAllocatedBytes(threadId);
+      fewest = Math.min(fewest, after - before);
+    }
+    return fewest;
+  }
+
+  static Map<String, Phase> phases() {
+    // A 1080x1920 screen at 3x density with a target in the upper half
+    final PromptGeometry geometry = new PromptGeometry(60, 132, 120, 60, 120, 264);
+    final int width = 1080;
+    final int height = 1920;
+    final int[] target = { 96, 600, 240, 744 };
+    final int targetCenterX = (target[0] + target[2]) >> 1;
+    final int targetCenterY = (target[1] + target[3]) >> 1;
+    final int[] textBounds = new int[4];
+    final int[] center = new int[2];
+
+    final Map<String, Phase> phases = new LinkedHashMap<>();
+    phases.put("layout", new Phase() {
+      @Override
+      public void run() {
+        geometry.textBounds(targetCenterX, targetCenterY, 840, 300, width, 72, textBounds);
+        geometry.outerCircleCenter(target[0], target[1], target[2], target[3],
+            textBounds[0], textBounds[2], 300, 81, height, 1776, center);
+        sink += geometry.outerCircleRadius(center[0], center[1],
+            textBounds[0], textBounds[1], textBounds[2], textBounds[3],
+            targetCenterX, targetCenterY);
+      }
+    });
+    phases.put("expand.250frames", new Phase() {
+      @Override
+      public void run() {
+        for (int frame = 0; frame < 250; ++frame) {
+          final float lerp = frame / 249.0f;
+          sink += (long) (PromptGeometry.delayedLerp(lerp, 0.7f) * 255);
+        }
+      }
+    });
+    phases.put("pulse.100frames", new Phase() {
+      @Override
+      public void run() {
+        for (int frame = 0; frame < 100; ++frame) {
+          final float lerp = (frame % 60) / 59.0f;
+          sink += (long) (PromptGeometry.delayedLerp(lerp, 0.5f) * 255);
+          sink += (long) (PromptGeometry.halfwayLerp(lerp) * 13);
+        }
+      }
+    });
+    phases.put("hitTest", new Phase() {
+      @Override
+      public void run() {
+        if (PromptGeometry.inTarget(500, 700, targetCenterX, targetCenterY, 264, 264)
+            || PromptGeometry.inCircle(500, 700, center[0], center[1], 600)) {
+          ++sink;
+        }
+      }
+    });
+    return phases;
+  }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the layout and hit-testing math of {@link TapTargetView} across screen sizes and
+ * target positions.
+ * <p>
+ * Run with {@code ./gradlew :benchmark:jmh}. Results are written to
+ * {@code benchmark/build/reports/jmh/results.json}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryBenchmark {
+  /** Screen size in pixels, as {@code widthxheight} **/
+  @Param({"720x1280", "1080x1920", "1440x2560"})
+  public String screen;
+
+  @Param({"TOP_LEFT", "CENTER", "BOTTOM_RIGHT", "TOP_GUTTER", "BOTTOM_GUTTER"})
+  public String position;
+
+  PromptGeometry geometry;
+
+  int width;
+  int height;
+  int topBoundary;
+  int bottomBoundary;
+
+  int targetLeft;
+  int targetTop;
+  int targetRight;
+  int targetBottom;
+  int targetCenterX;
+  int targetCenterY;
+  float targetWidth;
+
+  int totalTextWidth;
+  int totalTextHeight;
+  int titleHeight;
+
+  final int[] textBounds = new int[4];
+  final int[] center = new int[2];
+
+  int touchX;
+  int touchY;
+  float lerp;
+
+  @Setup
+  public void setUp() {
+    final String[] size = screen.split("x");
+    width = Integer.parseInt(size[0]);
+    height = Integer.parseInt(size[1]);
+
+    // Assume the screen is 360dp wide, which holds for most phones
+    final float density = width / 360.0f;
+    geometry = new PromptGeometry(dp(density, 20), dp(density, 44), dp(density, 40),
+        dp(density, 20), dp(density, 40), dp(density, 88));
+
+    topBoundary = dp(density, 24);
+    bottomBoundary = height - dp(density, 48);
+
+    final int targetSize = dp(density, 48);
+    final int margin = dp(density, 16);
+    switch (position) {
+      case "TOP_LEFT":
+        targetLeft = margin;
+        targetTop = topBoundary + dp(density, 96);
+        break;
+      case "CENTER":
+        targetLeft = (width - targetSize) / 2;
+        targetTop = (height - targetSize) / 2;
+        break;
+      case "BOTTOM_RIGHT":
+        targetLeft = width - margin - targetSize;
+        targetTop = bottomBoundary - dp(density, 96) - targetSize;
+        break;
+      case "TOP_GUTTER":
+        targetLeft = width - margin - targetSize;
+        targetTop = topBoundary;
+        break;
+      case "BOTTOM_GUTTER":
+        targetLeft = width - margin - targetSize;
+        targetTop = bottomBoundary - targetSize;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown position " + position);
+    }
+    targetRight = targetLeft + targetSize;
+    targetBottom = targetTop + targetSize;
+    targetCenterX = (targetLeft + targetRight) >> 1;
+    targetCenterY = (targetTop + targetBottom) >> 1;
+    targetWidth = geometry.targetRadius * 2;
+
+    // Title, a two line description and a confirm label
+    totalTextWidth = Math.min(width, dp(density, 360)) - dp(density, 40) * 2;
+    titleHeight = dp(density, 27);
+    totalTextHeight = titleHeight + dp(density, 48) + dp(density, 24) + dp(density, 8) * 2;
+
+    geometry.textBounds(targetCenterX, targetCenterY, totalTextWidth, totalTextHeight, width,
+        topBoundary, textBounds);
+    geometry.outerCircleCenter(targetLeft, targetTop, targetRight, targetBottom,
+        textBounds[0], textBounds[2], totalTextHeight, titleHeight, height, bottomBoundary, center);
+
+    // Touch somewhere between the target and the edge of the outer circle
+    touchX = (targetCenterX + center[0]) / 2;
+    touchY = (targetCenterY + center[1]) / 2;
+    lerp = 0.6f;
+  }
+
+  @Benchmark
+  public int[] textBounds() {
+    geometry.textBounds(targetCenterX, targetCenterY, totalTextWidth, totalTextHeight, width,
+        topBoundary, textBounds);
+    return textBounds;
+  }
+
+  @Benchmark
+  public int[] outerCircleCenter() {
+    geometry.outerCircleCenter(targetLeft, targetTop, targetRight, targetBottom,
+        textBounds[0], textBounds[2], totalTextHeight, titleHeight, height, bottomBoundary, center);
+    return center;
+  }
+
+  @Benchmark
+  public int outerCircleRadius() {
+    return geometry.outerCircleRadius(center[0], center[1],
+        textBounds[0], textBounds[1], textBounds[2], textBounds[3], targetCenterX, targetCenterY);
+  }
+
+  /** The full computation done whenever the prompt is laid out **/
+  @Benchmark
+  public int calculateDimensions() {
+    geometry.textBounds(targetCenterX, targetCenterY, totalTextWidth, totalTextHeight, width,
+        topBoundary, textBounds);
+    geometry.outerCircleCenter(targetLeft, targetTop, targetRight, targetBottom,
+        textBounds[0], textBounds[2], totalTextHeight, titleHeight, height, bottomBoundary, center);
+    return geometry.outerCircleRadius(center[0], center[1],
+        textBounds[0], textBounds[1], textBounds[2], textBounds[3], targetCenterX, targetCenterY);
+  }
+
+  @Benchmark
+  public int maxDistanceToPoints() {
+    return PromptGeometry.maxDistanceToPoints(center[0], center[1],
+        textBounds[0], textBounds[1], textBounds[2], textBounds[3]);
+  }
+
+  @Benchmark
+  public double distance() {
+    return PromptGeometry.distance(center[0], center[1], touchX, touchY);
+  }
+
+  @Benchmark
+  public boolean inGutter() {
+    return geometry.inGutter(targetCenterY, height, bottomBoundary);
+  }
+
+  @Benchmark
+  public void lerps(Blackhole blackhole) {
+    blackhole.consume(PromptGeometry.halfwayLerp(lerp));
+    blackhole.consume(PromptGeometry.delayedLerp(lerp, 0.5f));
+  }
+
+  /** The hit-test done for every click on the prompt **/
+  @Benchmark
+  public void hitTest(Blackhole blackhole) {
+    blackhole.consume(PromptGeometry.inTarget(touchX, touchY, targetCenterX, targetCenterY,
+        targetWidth, targetWidth));
+    blackhole.consume(PromptGeometry.inCircle(touchX, touchY, center[0], center[1],
+        outerCircleRadius()));
+  }
+
+  static int dp(float density, int value) {
+    return (int) (value * density);
+  }
+}
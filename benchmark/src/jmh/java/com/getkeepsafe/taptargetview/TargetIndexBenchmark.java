@@ -0,0 +1,112 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares routing a touch through the {@link TargetIndex} of a {@link TapTargetOverlay} against
+ * testing every target, for growing numbers of targets spread over a tall scrolling canvas.
+ * <p>
+ * Run with {@code ./gradlew :benchmark:jmh -Pjmh.include=TargetIndexBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TargetIndexBenchmark {
+  @Param({"4", "16", "64", "256", "1024"})
+  public int targets;
+
+  static final int WIDTH = 1080;
+  static final int ROW_HEIGHT = 480;
+  static final int TOUCHES = 256;
+
+  final TargetIndex index = new TargetIndex();
+  int[] bounds;
+  int[] hits;
+  int[] touches;
+  int touch;
+
+  @Setup
+  public void setUp() {
+    final Random random = new Random(42);
+
+    // Outer circles of roughly 300 to 500px, two per row
+    bounds = new int[targets * 4];
+    for (int i = 0; i < targets; ++i) {
+      final int size = 300 + random.nextInt(200);
+      final int left = (i % 2) * (WIDTH / 2) + random.nextInt(WIDTH / 2 - size / 2);
+      final int top = (i / 2) * ROW_HEIGHT + random.nextInt(ROW_HEIGHT / 2);
+      bounds[i * 4] = left;
+      bounds[i * 4 + 1] = top;
+      bounds[i * 4 + 2] = left + size;
+      bounds[i * 4 + 3] = top + size;
+    }
+    index.build(bounds, targets);
+    hits = new int[targets];
+
+    final int height = ((targets + 1) / 2) * ROW_HEIGHT;
+    touches = new int[TOUCHES * 2];
+    for (int i = 0; i < TOUCHES; ++i) {
+      touches[i * 2] = random.nextInt(WIDTH);
+      touches[i * 2 + 1] = random.nextInt(height);
+    }
+  }
+
+  @Benchmark
+  public int indexQuery() {
+    final int i = nextTouch();
+    return index.query(touches[i], touches[i + 1], hits);
+  }
+
+  @Benchmark
+  public int linearScan() {
+    final int i = nextTouch();
+    final int x = touches[i];
+    final int y = touches[i + 1];
+    int found = 0;
+    for (int t = 0; t < targets; ++t) {
+      final int offset = t * 4;
+      if (x >= bounds[offset] && y >= bounds[offset + 1]
+          && x < bounds[offset + 2] && y < bounds[offset + 3]) {
+        hits[found++] = t;
+      }
+    }
+    return found;
+  }
+
+  /** Rebuilding the index, done whenever the overlay is laid out or loses a target **/
+  @Benchmark
+  public TargetIndex rebuild() {
+    index.build(bounds, targets);
+    return index;
+  }
+
+  int nextTouch() {
+    touch = (touch + 1) % TOUCHES;
+    return touch * 2;
+  }
+}
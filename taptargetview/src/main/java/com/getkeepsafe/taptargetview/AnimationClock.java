@@ -0,0 +1,39 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+/**
+ * The time source and frame scheduler that drives a {@link TapTargetView}'s animations.
+ * <p>
+ * Animations run on {@link #DEFAULT} unless told otherwise. Give a target a
+ * {@link ManualAnimationClock} through {@link TapTarget#animationClock(AnimationClock)} to step
+ * through its show, pulse and dismiss animations without waiting on the wall clock.
+ */
+public interface AnimationClock {
+  /** Follows {@link android.os.SystemClock#uptimeMillis()} and the calling thread's display frames **/
+  AnimationClock DEFAULT = new SystemAnimationClock();
+
+  /** Returns the current time in milliseconds **/
+  long uptimeMillis();
+
+  /**
+   * Runs the given callback once on the next frame, on the thread that scheduled it. Scheduling a
+   * callback that is already pending has no effect
+   */
+  void scheduleFrame(Runnable callback);
+
+  /** Removes a pending callback previously given to {@link #scheduleFrame(Runnable)} **/
+  void cancelFrame(Runnable callback);
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.graphics.drawable.Drawable;
+import android.text.Layout;
+
+/**
+ * The default {@link TapTargetRenderer}, drawing a {@link PromptFrame} with plain {@link Canvas}
+ * calls.
+ */
+class CanvasTapTargetRenderer implements TapTargetRenderer {
+  @Override
+  public void draw(PromptFrame frame, Canvas c) {
+    drawOuterCircle(frame, c);
+    drawTargetCircle(frame, c);
+    drawText(frame, c);
+    drawTargetIcon(frame, c);
+  }
+
+  void drawOuterCircle(PromptFrame frame, Canvas c) {
+    final Paint paint = frame.getOuterCirclePaint();
+    paint.setAlpha(frame.getOuterCircleAlpha());
+    if (frame.shouldDrawShadow()) {
+      drawShadow(frame, c);
+    }
+    c.drawCircle(frame.getOuterCircleCenterX(), frame.getOuterCircleCenterY(),
+        frame.getOuterCircleRadius(), paint);
+  }
+
+  void drawShadow(PromptFrame frame, Canvas c) {
+    final int saveCount = c.save();
+    {
+      c.clipPath(frame.getOuterCirclePath(), Region.Op.DIFFERENCE);
+      drawJitteredShadow(frame, c);
+    }
+    c.restoreToCount(saveCount);
+  }
+
+  /** Approximates a shadow with a filled circle and rings of fading strokes around it **/
+  static void drawJitteredShadow(PromptFrame frame, Canvas c) {
+    final Paint paint = frame.getShadowPaint();
+    final float centerX = frame.getOuterCircleCenterX();
+    final float centerY = frame.getOuterCircleCenterY() + frame.getShadowOffset();
+    final float radius = frame.getOuterCircleRadius();
+    final float baseAlpha = 0.20f * frame.getOuterCircleAlpha();
+
+    paint.setStyle(Paint.Style.FILL_AND_STROKE);
+    paint.setAlpha((int) baseAlpha);
+    c.drawCircle(centerX, centerY, radius, paint);
+    paint.setStyle(Paint.Style.STROKE);
+    final int numJitters = 7;
+    for (int i = numJitters - 1; i > 0; --i) {
+      paint.setAlpha((int) ((i / (float) numJitters) * baseAlpha));
+      c.drawCircle(centerX, centerY, radius + (numJitters - i) * frame.getShadowJitter(), paint);
+    }
+  }
+
+  void drawTargetCircle(PromptFrame frame, Canvas c) {
+    final Paint paint = frame.getTargetCirclePaint();
+    paint.setAlpha(frame.getTargetCircleAlpha());
+    if (frame.getPulseAlpha() > 0) {
+      drawPulse(frame, c);
+    }
+    drawTargetShape(c, frame.targetShapeBounds, frame.getTargetCenterX(), frame.getTargetCenterY(),
+        frame.getTargetCircleWidth(), frame.getTargetCircleHeight(), frame.getTargetCircleRadius(),
+        paint);
+  }
+
+  void drawPulse(PromptFrame frame, Canvas c) {
+    final Paint paint = frame.getPulsePaint();
+    paint.setAlpha(frame.getPulseAlpha());
+    drawTargetShape(c, frame.targetPulseShapeBounds, frame.getTargetCenterX(),
+        frame.getTargetCenterY(), frame.getPulseWidth(), frame.getPulseHeight(),
+        frame.getPulseRadius(), paint);
+  }
+
+  /**
+   * Draws the rounded target shape, or its pulse, centered at the given point. {@code bounds} is
+   * only used as scratch space
+   */
+  static void drawTargetShape(Canvas c, RectF bounds, float centerX, float centerY, float width,
+                              float height, float radius, Paint paint) {
+    bounds.set(centerX - width / 2, centerY - height / 2, centerX + width / 2, centerY + height / 2);
+    c.drawRoundRect(bounds, radius, radius, paint);
+  }
+
+  void drawText(PromptFrame frame, Canvas c) {
+    final Layout title = frame.getTitleLayout();
+    final Layout description = frame.getDescriptionLayout();
+    final Layout confirmLabel = frame.getConfirmLabelLayout();
+    final int alpha = frame.getTextAlpha();
+    if (title == null) return;
+
+    final int saveCount = c.save();
+    {
+      c.translate(frame.getTextLeft(), frame.getTextTop());
+      title.getPaint().setAlpha(alpha);
+      title.draw(c);
+
+      if (description != null) {
+        c.translate(0, title.getHeight() + frame.getTextSpacing());
+        description.getPaint().setAlpha(alpha);
+        description.draw(c);
+
+        if (confirmLabel != null) {
+          c.translate(0, description.getHeight() + frame.getTextSpacing());
+          confirmLabel.getPaint().setAlpha(alpha);
+          confirmLabel.draw(c);
+        }
+      }
+    }
+    c.restoreToCount(saveCount);
+  }
+
+  void drawTargetIcon(PromptFrame frame, Canvas c) {
+    final Bitmap tinted = frame.getTintedIcon();
+    final Drawable icon = frame.getIcon();
+    final int centerX = frame.getTargetCenterX();
+    final int centerY = frame.getTargetCenterY();
+    final Paint paint = frame.getTargetCirclePaint();
+
+    if (tinted != null) {
+      c.drawBitmap(tinted, centerX - tinted.getWidth() / 2, centerY - tinted.getHeight() / 2, paint);
+    } else if (icon != null) {
+      final int saveCount = c.save();
+      {
+        c.translate(centerX - icon.getBounds().width() / 2, centerY - icon.getBounds().height() / 2);
+        icon.setAlpha(paint.getAlpha());
+        icon.draw(c);
+      }
+      c.restoreToCount(saveCount);
+    }
+  }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.graphics.Canvas;
+
+/**
+ * A {@link TapTargetRenderer} that skips the jittered shadow and the target pulse. Shadows drawn
+ * via the view's outline on API 21+ are unaffected, as those are rendered by the system.
+ */
+class FlatTapTargetRenderer extends CanvasTapTargetRenderer {
+  @Override
+  void drawShadow(PromptFrame frame, Canvas c) {
+  }
+
+  @Override
+  void drawPulse(PromptFrame frame, Canvas c) {
+  }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import android.animation.TimeInterpolator;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import java.util.ArrayList;
+
+/**
+ * Animates a float between two values, timed by an {@link AnimationClock}. Offers the parts of
+ * {@link android.animation.ValueAnimator} that this library needs, including pausing on every
+ * API level, but can be stepped through by a {@link ManualAnimationClock}.
+ * <p>
+ * As with a ValueAnimator, cancelling a started animation notifies its end listener, and the
+ * duration and start delay are multiplied by a {@link #setDurationScale(float) duration scale}.
+ */
+class FloatAnimator {
+  private final float from;
+  private final float to;
+  private final ArrayList<FloatValueAnimatorBuilder.UpdateListener> updateListeners = new ArrayList<>();
+  FloatValueAnimatorBuilder.EndListener endListener;
+
+  private AnimationClock clock = AnimationClock.DEFAULT;
+  private long startDelay;
+  private long duration = 300;
+  private float durationScale = 1.0f;
+  private TimeInterpolator interpolator = new AccelerateDecelerateInterpolator();
+
+  private boolean started;
+  private boolean paused;
+  private long startTime;
+  private long scaledDuration;
+  private long pauseTime;
+
+  private final Runnable frameRunnable = new Runnable() {
+    @Override
+    public void run() {
+      doFrame();
+    }
+  };
+
+  FloatAnimator(float from, float to) {
+    this.from = from;
+    this.to = to;
+  }
+
+  void setClock(AnimationClock clock) {
+    if (started) {
+      throw new IllegalStateException("Cannot change the clock of a started animation");
+    }
+    this.clock = clock;
+  }
+
+  void setStartDelay(long millis) {
+    this.startDelay = millis;
+  }
+
+  /** Returns the start delay as it will be waited, multiplied by the duration scale **/
+  long getScaledStartDelay() {
+    return (long) (startDelay * durationScale);
+  }
+
+  void setDuration(long millis) {
+    this.duration = millis;
+  }
+
+  /**
+   * Scales the duration and start delay from the next start on, usually by the system's animator
+   * duration scale. With a scale of 0 the animation jumps straight to its end value when started
+   */
+  void setDurationScale(float scale) {
+    if (scale < 0) throw new IllegalArgumentException("Duration scale cannot be negative");
+    this.durationScale = scale;
+  }
+
+  void setInterpolator(TimeInterpolator interpolator) {
+    this.interpolator = interpolator;
+  }
+
+  void addUpdateListener(FloatValueAnimatorBuilder.UpdateListener listener) {
+    updateListeners.add(listener);
+  }
+
+  void removeAllUpdateListeners() {
+    updateListeners.clear();
+  }
+
+  /** Starts the animation from the beginning, restarting it if it was already started **/
+  void start() {
+    started = true;
+    paused = false;
+    if (durationScale == 0) {
+      update(1.0f);
+      if (started) {
+        end();
+      }
+      return;
+    }
+
+    scaledDuration = (long) (duration * durationScale);
+    startTime = clock.uptimeMillis() + getScaledStartDelay();
+    if (startDelay == 0) {
+      update(0.0f);
+    }
+
+    if (started) {
+      clock.scheduleFrame(frameRunnable);
+    }
+  }
+
+  void cancel() {
+    if (started) {
+      end();
+    }
+  }
+
+  void pause() {
+    if (!started || paused) return;
+
+    paused = true;
+    pauseTime = clock.uptimeMillis();
+    clock.cancelFrame(frameRunnable);
+  }
+
+  void resume() {
+    if (!paused) return;
+
+    paused = false;
+    startTime += clock.uptimeMillis() - pauseTime;
+    clock.scheduleFrame(frameRunnable);
+  }
+
+  /** Returns whether the animation was started and hasn't ended yet, even if paused **/
+  boolean isStarted() {
+    return started;
+  }
+
+  boolean isPaused() {
+    return paused;
+  }
+
+  void doFrame() {
+    if (!started || paused) return;
+
+    final long elapsed = clock.uptimeMillis() - startTime;
+    if (elapsed < 0) {
+      // Still within the start delay
+      clock.scheduleFrame(frameRunnable);
+      return;
+    }
+
+    if (elapsed >= scaledDuration) {
+      update(1.0f);
+      if (started) {
+        end();
+      }
+      return;
+    }
+
+    update((float) elapsed / scaledDuration);
+    if (started && !paused) {
+      clock.scheduleFrame(frameRunnable);
+    }
+  }
+
+  private void update(float fraction) {
+    final float value = from + (to - from) * interpolator.getInterpolation(fraction);
+    for (int i = 0; i < updateListeners.size(); ++i) {
+      updateListeners.get(i).onUpdate(value);
+    }
+  }
+
+  private void end() {
+    started = false;
+    paused = false;
+    clock.cancelFrame(frameRunnable);
+    if (endListener != null) {
+      endListener.onEnd();
+    }
+  }
+}
@@ -15,18 +15,13 @@
  */
 package com.getkeepsafe.taptargetview;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
 import android.animation.TimeInterpolator;
-import android.animation.ValueAnimator;
 
 /**
- * A small wrapper around {@link ValueAnimator} to provide a builder-like interface
+ * A small wrapper around {@link FloatAnimator} to provide a builder-like interface
  */
 class FloatValueAnimatorBuilder {
-  final ValueAnimator animator;
-
-  EndListener endListener;
+  final FloatAnimator animator;
 
   interface UpdateListener {
     void onUpdate(float lerpTime);
@@ -42,9 +37,9 @@ class FloatValueAnimatorBuilder {
 
   protected FloatValueAnimatorBuilder(boolean reverse) {
     if (reverse) {
-      this.animator = ValueAnimator.ofFloat(1.0f, 0.0f);
+      this.animator = new FloatAnimator(1.0f, 0.0f);
     } else {
-      this.animator = ValueAnimator.ofFloat(0.0f, 1.0f);
+      this.animator = new FloatAnimator(0.0f, 1.0f);
     }
   }
 
@@ -63,36 +58,17 @@ class FloatValueAnimatorBuilder {
     return this;
   }
 
-  public FloatValueAnimatorBuilder repeat(int times) {
-    animator.setRepeatCount(times);
-    return this;
-  }
-
   public FloatValueAnimatorBuilder onUpdate(final UpdateListener listener) {
-    animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-      @Override
-      public void onAnimationUpdate(ValueAnimator animation) {
-        listener.onUpdate((float) animation.getAnimatedValue());
-      }
-    });
+    animator.addUpdateListener(listener);
     return this;
   }
 
   public FloatValueAnimatorBuilder onEnd(final EndListener listener) {
-    this.endListener = listener;
+    animator.endListener = listener;
     return this;
   }
 
-  public ValueAnimator build() {
-    if (endListener != null) {
-      animator.addListener(new AnimatorListenerAdapter() {
-        @Override
-        public void onAnimationEnd(Animator animation) {
-          endListener.onEnd();
-        }
-      });
-    }
-
+  public FloatAnimator build() {
     return animator;
   }
 }
@@ -0,0 +1,54 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.graphics.Rect;
+
+/**
+ * A copy of the parts of a {@link PromptFrame} that are needed to hit-test
+ * touches. Used to hand the state over between threads when the view is rendered off the main
+ * thread.
+ */
+class FrameState {
+  boolean hasOuterCircle;
+  int outerCircleCenterX;
+  int outerCircleCenterY;
+  float outerCircleRadius;
+
+  final Rect targetBounds = new Rect();
+  float targetCircleWidth;
+  float targetCircleHeight;
+
+  void set(PromptFrame frame) {
+    hasOuterCircle = frame.placed;
+    outerCircleCenterX = frame.outerCircleCenter[0];
+    outerCircleCenterY = frame.outerCircleCenter[1];
+    outerCircleRadius = frame.outerCircleRadius;
+    targetBounds.set(frame.targetBounds);
+    targetCircleWidth = frame.targetCircleWidth;
+    targetCircleHeight = frame.targetCircleHeight;
+  }
+
+  void set(FrameState other) {
+    hasOuterCircle = other.hasOuterCircle;
+    outerCircleCenterX = other.outerCircleCenterX;
+    outerCircleCenterY = other.outerCircleCenterY;
+    outerCircleRadius = other.outerCircleRadius;
+    targetBounds.set(other.targetBounds);
+    targetCircleWidth = other.targetCircleWidth;
+    targetCircleHeight = other.targetCircleHeight;
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A set of non-negative ids. Ids below {@link #DENSE_LIMIT} are kept in a {@link BitSet}, larger
+ * ones such as resource ids in a sorted array, so that a single large id doesn't cost a bit for
+ * every id below it. Not thread safe.
+ */
+final class IdSet {
+  // Caps the bit set at 8 KB
+  static final int DENSE_LIMIT = 1 << 16;
+
+  private final BitSet dense = new BitSet();
+  private int[] sparse = new int[0];
+  private int sparseSize;
+
+  boolean contains(int id) {
+    if (id < 0) return false;
+    if (id < DENSE_LIMIT) {
+      return dense.get(id);
+    }
+    return Arrays.binarySearch(sparse, 0, sparseSize, id) >= 0;
+  }
+
+  /** Adds the given id, returning whether it wasn't in the set yet **/
+  boolean add(int id) {
+    if (id < 0) throw new IllegalArgumentException("Given negative id");
+    if (id < DENSE_LIMIT) {
+      if (dense.get(id)) return false;
+      dense.set(id);
+      return true;
+    }
+
+    final int index = Arrays.binarySearch(sparse, 0, sparseSize, id);
+    if (index >= 0) return false;
+
+    final int insertAt = -index - 1;
+    if (sparseSize == sparse.length) {
+      sparse = Arrays.copyOf(sparse, Math.max(8, sparseSize * 2));
+    }
+    System.arraycopy(sparse, insertAt, sparse, insertAt + 1, sparseSize - insertAt);
+    sparse[insertAt] = id;
+    ++sparseSize;
+    return true;
+  }
+
+  void addAll(IdSet other) {
+    dense.or(other.dense);
+    for (int i = 0; i < other.sparseSize; ++i) {
+      add(other.sparse[i]);
+    }
+  }
+
+  void clear() {
+    dense.clear();
+    sparseSize = 0;
+  }
+
+  int size() {
+    return dense.cardinality() + sparseSize;
+  }
+
+  /** Returns the smallest id in the set that is at least the given one, or -1 if there is none **/
+  int nextId(int from) {
+    if (from < 0) throw new IllegalArgumentException("Given negative id");
+    if (from < DENSE_LIMIT) {
+      final int id = dense.nextSetBit(from);
+      if (id >= 0) return id;
+      from = DENSE_LIMIT;
+    }
+
+    final int index = Arrays.binarySearch(sparse, 0, sparseSize, from);
+    final int next = index >= 0 ? index : -index - 1;
+    return next < sparseSize ? sparse[next] : -1;
+  }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import android.support.annotation.Nullable;
+
+/**
+ * Stands in for a target in a {@link TapTargetSequence} until the sequence reaches it and creates
+ * the actual target through its {@link TapTarget.Factory}
+ */
+class LazyTapTarget extends TapTarget {
+  final Factory factory;
+
+  LazyTapTarget(Factory factory) {
+    super("", null, null);
+    if (factory == null) {
+      throw new IllegalArgumentException("Given null factory");
+    }
+    this.factory = factory;
+  }
+
+  /** Returns the created target, or null if it can't be created yet **/
+  @Nullable
+  TapTarget resolve() {
+    try {
+      return factory.create();
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      // Thrown by the target factories while the view they look for doesn't exist
+      return null;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import java.util.ArrayList;
+
+/**
+ * An {@link AnimationClock} that only moves when told to, so that animations can be stepped
+ * through deterministically in tests and benchmarks.
+ * <p>
+ * Frame callbacks run on the thread calling {@link #advanceBy(long)} or {@link #frame()}, which
+ * should be the thread the prompt was shown on. It is not meant to be combined with
+ * {@link TapTarget#renderOffMainThread(boolean)}, and disables
+ * {@link TapTarget#renderThreadAnimations(boolean)} as those are timed by the platform.
+ */
+public class ManualAnimationClock implements AnimationClock {
+  private final long frameInterval;
+  private final ArrayList<Runnable> pending = new ArrayList<>();
+  private final ArrayList<Runnable> running = new ArrayList<>();
+  private long now;
+
+  /** Creates a clock that advances in 16 millisecond frames **/
+  public ManualAnimationClock() {
+    this(16);
+  }
+
+  /** Creates a clock that advances in frames of the given length **/
+  public ManualAnimationClock(long frameIntervalMillis) {
+    if (frameIntervalMillis <= 0) {
+      throw new IllegalArgumentException("Frame interval must be positive");
+    }
+    this.frameInterval = frameIntervalMillis;
+  }
+
+  @Override
+  public long uptimeMillis() {
+    return now;
+  }
+
+  @Override
+  public void scheduleFrame(Runnable callback) {
+    if (!pending.contains(callback)) {
+      pending.add(callback);
+    }
+  }
+
+  @Override
+  public void cancelFrame(Runnable callback) {
+    pending.remove(callback);
+  }
+
+  /** Returns whether any callback is waiting for the next frame **/
+  public boolean hasPendingFrames() {
+    return !pending.isEmpty();
+  }
+
+  /**
+   * Moves time forward by the given amount, running a frame after every frame interval and once
+   * more at the end if the amount isn't a multiple of it
+   */
+  public void advanceBy(long millis) {
+    if (millis < 0) throw new IllegalArgumentException("Cannot move time backwards");
+
+    final long end = now + millis;
+    while (now < end) {
+      now = Math.min(now + frameInterval, end);
+      frame();
+    }
+  }
+
+  /** Runs the callbacks waiting for the next frame without moving time **/
+  public void frame() {
+    running.addAll(pending);
+    pending.clear();
+    for (int i = 0; i < running.size(); ++i) {
+      running.get(i).run();
+    }
+    running.clear();
+  }
+}
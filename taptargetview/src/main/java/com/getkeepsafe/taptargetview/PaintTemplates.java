@@ -0,0 +1,71 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.TextPaint;
+
+/**
+ * Process-wide templates for the paints of a {@link TapTargetView}. They are configured once, when
+ * this class is first used, and are never modified afterwards; views only ever receive copies.
+ * This keeps the typeface lookups out of every view's construction.
+ */
+final class PaintTemplates {
+  static final Typeface TITLE_TYPEFACE = Typeface.create("sans-serif-medium", Typeface.NORMAL);
+  static final Typeface BODY_TYPEFACE = Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL);
+
+  private static final TextPaint TITLE = textPaint(TITLE_TYPEFACE);
+  private static final TextPaint BODY = textPaint(BODY_TYPEFACE);
+  private static final Paint FILL = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private static final Paint SHADOW = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+  static {
+    SHADOW.setColor(Color.BLACK);
+    SHADOW.setAlpha(50);
+    SHADOW.setStyle(Paint.Style.STROKE);
+  }
+
+  private PaintTemplates() {
+  }
+
+  /** Returns a copy of the template for titles **/
+  static TextPaint title() {
+    return new TextPaint(TITLE);
+  }
+
+  /** Returns a copy of the template for descriptions and confirm labels **/
+  static TextPaint body() {
+    return new TextPaint(BODY);
+  }
+
+  /** Returns a copy of the template for filled circles **/
+  static Paint fill() {
+    return new Paint(FILL);
+  }
+
+  /** Returns a copy of the template for the outer circle's shadow, without its stroke width **/
+  static Paint shadow() {
+    return new Paint(SHADOW);
+  }
+
+  private static TextPaint textPaint(Typeface typeface) {
+    final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
+    paint.setTypeface(typeface);
+    return paint;
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import android.graphics.Rect;
+import android.support.v4.view.OnApplyWindowInsetsListener;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.WindowInsetsCompat;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * The top and bottom boundaries keeping a prompt clear of the status bar, navigation bar and
+ * keyboard.
+ * <p>
+ * They are derived from the window insets dispatched to the prompt and cached until the insets or
+ * the prompt's size change. When no insets are dispatched, before Lollipop or when a sibling
+ * consumed them, nothing signals the keyboard or system bars changing, so the window's visible
+ * display frame is read again on every update, which happens once per global layout.
+ */
+final class PromptBoundaries implements OnApplyWindowInsetsListener {
+  private final View view;
+  private final ViewGroup boundingParent;
+  private final Rect visibleFrame = new Rect();
+
+  int top;
+  int bottom;
+
+  private boolean stale = true;
+  private boolean hasInsets;
+  private int insetTop;
+  private int insetBottom;
+
+  PromptBoundaries(View view, ViewGroup boundingParent) {
+    this.view = view;
+    this.boundingParent = boundingParent;
+    ViewCompat.setOnApplyWindowInsetsListener(view, this);
+  }
+
+  /** Asks for the window insets to be dispatched again, such as once the prompt is attached **/
+  void requestInsets() {
+    ViewCompat.requestApplyInsets(view);
+  }
+
+  /** Recalculates the insets based boundaries on the next update, such as after a size change **/
+  void invalidate() {
+    stale = true;
+  }
+
+  @Override
+  public WindowInsetsCompat onApplyWindowInsets(View v, WindowInsetsCompat insets) {
+    final int newTop = insets.getSystemWindowInsetTop();
+    final int newBottom = insets.getSystemWindowInsetBottom();
+    if (!hasInsets || newTop != insetTop || newBottom != insetBottom) {
+      hasInsets = true;
+      insetTop = newTop;
+      insetBottom = newBottom;
+      stale = true;
+      // Insets can change without the window being resized, e.g. when system bars are hidden
+      view.requestLayout();
+    }
+
+    // Left unconsumed so that views added after the prompt still receive them
+    return insets;
+  }
+
+  /** Recalculates the boundaries if anything they depend on may have changed since the last update **/
+  void update() {
+    if (hasInsets) {
+      if (!stale) return;
+      stale = false;
+      top = insetTop;
+      bottom = view.getHeight() - insetBottom;
+      return;
+    }
+
+    boundingParent.getWindowVisibleDisplayFrame(visibleFrame);
+    // We bound the boundaries to be within the screen's coordinates to
+    // handle the case where the layout bounds do not match
+    // (like when FLAG_LAYOUT_NO_LIMITS is specified)
+    top = Math.max(0, visibleFrame.top);
+    bottom = Math.min(visibleFrame.bottom, view.getResources().getDisplayMetrics().heightPixels);
+  }
+}
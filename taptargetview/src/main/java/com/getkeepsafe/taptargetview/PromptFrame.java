@@ -0,0 +1,494 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+import android.graphics.PorterDuffXfermode;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.Nullable;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * The drawable state of a single prompt, as handed to a {@link TapTargetRenderer}: its resolved
+ * paints and text layouts, where its target, text and outer circle are placed and how far along
+ * its animations are.
+ * <p>
+ * A frame belongs to the view showing the prompt, and is only updated and drawn on the thread
+ * rendering that view. Renderers should read it while drawing and not hold on to it. Its paints
+ * may be modified while drawing, such as to apply the current alpha, as that is set again on every
+ * frame.
+ */
+public final class PromptFrame {
+  final int TARGET_PADDING;
+  final int TARGET_RADIUS;
+  final int TARGET_WIDTH;
+  final int TARGET_HEIGHT;
+  final int TARGET_PULSE_RADIUS;
+  final int TEXT_PADDING;
+  final int TEXT_SPACING;
+  final int TEXT_MAX_WIDTH;
+  final int TEXT_POSITIONING_BIAS;
+  final int CIRCLE_PADDING;
+  final int GUTTER_DIM;
+  final int SHADOW_DIM;
+  final int SHADOW_JITTER_DIM;
+
+  final TapTarget target;
+  final PromptGeometry geometry;
+
+  final TextPaint titlePaint;
+  final TextPaint descriptionPaint;
+  final TextPaint confirmLabelPaint;
+  final Paint outerCirclePaint;
+  final Paint outerCircleShadowPaint;
+  final Paint targetCirclePaint;
+  final Paint targetCirclePulsePaint;
+
+  // Layout, see layoutText and place
+  @Nullable
+  StaticLayout titleLayout;
+  @Nullable
+  StaticLayout descriptionLayout;
+  @Nullable
+  StaticLayout confirmLabelLayout;
+  int layoutWidth;
+  @Nullable
+  Bitmap tintedTarget;
+
+  boolean placed;
+  final Rect targetBounds = new Rect();
+  final Rect textBounds = new Rect();
+  final int[] outerCircleCenter = new int[2];
+  int calculatedOuterCircleRadius;
+  private final int[] placedTextBounds = new int[4];
+
+  // Animated state
+  final Path outerCirclePath = new Path();
+  float outerCircleRadius;
+  int outerCircleAlpha;
+
+  float targetCirclePulseRadius;
+  float targetCirclePulseWidth;
+  float targetCirclePulseHeight;
+  int targetCirclePulseAlpha;
+
+  float targetCircleRadius;
+  float targetCircleWidth;
+  float targetCircleHeight;
+  int targetCircleAlpha;
+
+  int textAlpha;
+
+  // Set when the outer circle's shadow is not drawn by the system from the view's outline
+  boolean drawShadow;
+
+  // Scratch space for drawing the target shapes
+  final RectF targetShapeBounds = new RectF();
+  final RectF targetPulseShapeBounds = new RectF();
+
+  /**
+   * Creates the frame for the given target, drawn with the paints of the given style. A style
+   * owned by the frame alone hands its paints over, while a shared one has them copied
+   */
+  PromptFrame(Context context, TapTarget target, TapTargetStyle style, boolean ownsStyle) {
+    this.target = target;
+
+    TARGET_PADDING = UiUtil.dp(context, 20);
+    CIRCLE_PADDING = UiUtil.dp(context, 40);
+    TARGET_RADIUS = UiUtil.dp(context, target.targetRadius);
+    TARGET_WIDTH = UiUtil.dp(context, Math.max(target.targetRadius * 2, target.targetWidth));
+    TARGET_HEIGHT = UiUtil.dp(context, Math.max(target.targetRadius * 2, target.targetHeight));
+    TEXT_PADDING = UiUtil.dp(context, 40);
+    TEXT_SPACING = UiUtil.dp(context, 8);
+    TEXT_MAX_WIDTH = UiUtil.dp(context, 360);
+    TEXT_POSITIONING_BIAS = UiUtil.dp(context, 20);
+    GUTTER_DIM = UiUtil.dp(context, 88);
+    SHADOW_DIM = UiUtil.dp(context, 8);
+    SHADOW_JITTER_DIM = UiUtil.dp(context, 1);
+    TARGET_PULSE_RADIUS = (int) (0.1f * TARGET_RADIUS);
+
+    geometry = new PromptGeometry(TARGET_PADDING, TARGET_RADIUS, TEXT_PADDING,
+        TEXT_POSITIONING_BIAS, CIRCLE_PADDING, GUTTER_DIM);
+
+    if (ownsStyle) {
+      titlePaint = style.titlePaint;
+      descriptionPaint = style.descriptionPaint;
+      confirmLabelPaint = style.confirmLabelPaint;
+      outerCirclePaint = style.outerCirclePaint;
+      targetCirclePaint = style.targetCirclePaint;
+    } else {
+      titlePaint = new TextPaint(style.titlePaint);
+      descriptionPaint = new TextPaint(style.descriptionPaint);
+      confirmLabelPaint = new TextPaint(style.confirmLabelPaint);
+      outerCirclePaint = new Paint(style.outerCirclePaint);
+      targetCirclePaint = new Paint(style.targetCirclePaint);
+    }
+    outerCirclePaint.setAlpha((int) (target.outerCircleAlpha * 255.0f));
+    if (target.transparentTarget) {
+      targetCirclePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
+    }
+
+    outerCircleShadowPaint = PaintTemplates.shadow();
+    outerCircleShadowPaint.setStrokeWidth(SHADOW_JITTER_DIM);
+
+    targetCirclePulsePaint = PaintTemplates.fill();
+    targetCirclePulsePaint.setColor(targetCirclePaint.getColor());
+  }
+
+  /** Returns the target this frame is drawn for **/
+  public TapTarget getTarget() {
+    return target;
+  }
+
+  /** Writes the bounds of the target, relative to the view showing the prompt, into the given rect **/
+  public void getTargetBounds(Rect out) {
+    out.set(targetBounds);
+  }
+
+  public int getTargetCenterX() {
+    return targetBounds.centerX();
+  }
+
+  public int getTargetCenterY() {
+    return targetBounds.centerY();
+  }
+
+  public int getOuterCircleCenterX() {
+    return outerCircleCenter[0];
+  }
+
+  public int getOuterCircleCenterY() {
+    return outerCircleCenter[1];
+  }
+
+  /** Returns the current radius of the outer circle, which grows and shrinks as it animates **/
+  public float getOuterCircleRadius() {
+    return outerCircleRadius;
+  }
+
+  public int getOuterCircleAlpha() {
+    return outerCircleAlpha;
+  }
+
+  /** Returns the current outline of the outer circle, such as to clip its shadow with **/
+  public Path getOuterCirclePath() {
+    return outerCirclePath;
+  }
+
+  public Paint getOuterCirclePaint() {
+    return outerCirclePaint;
+  }
+
+  /** Returns whether the renderer should draw the outer circle's shadow itself **/
+  public boolean shouldDrawShadow() {
+    return drawShadow;
+  }
+
+  public Paint getShadowPaint() {
+    return outerCircleShadowPaint;
+  }
+
+  /** Returns how far below the outer circle its shadow is cast, in pixels **/
+  public int getShadowOffset() {
+    return SHADOW_DIM;
+  }
+
+  /** Returns the spacing between the rings of a jittered shadow, in pixels **/
+  public int getShadowJitter() {
+    return SHADOW_JITTER_DIM;
+  }
+
+  /** Returns the current corner radius of the target shape **/
+  public float getTargetCircleRadius() {
+    return targetCircleRadius;
+  }
+
+  public float getTargetCircleWidth() {
+    return targetCircleWidth;
+  }
+
+  public float getTargetCircleHeight() {
+    return targetCircleHeight;
+  }
+
+  public int getTargetCircleAlpha() {
+    return targetCircleAlpha;
+  }
+
+  public Paint getTargetCirclePaint() {
+    return targetCirclePaint;
+  }
+
+  /** Returns the current corner radius of the pulse drawn around the target **/
+  public float getPulseRadius() {
+    return targetCirclePulseRadius;
+  }
+
+  public float getPulseWidth() {
+    return targetCirclePulseWidth;
+  }
+
+  public float getPulseHeight() {
+    return targetCirclePulseHeight;
+  }
+
+  /** Returns the current alpha of the pulse, which is 0 whenever it should not be drawn **/
+  public int getPulseAlpha() {
+    return targetCirclePulseAlpha;
+  }
+
+  public Paint getPulsePaint() {
+    return targetCirclePulsePaint;
+  }
+
+  /** Returns the left edge of the text block, relative to the view showing the prompt **/
+  public int getTextLeft() {
+    return textBounds.left;
+  }
+
+  /** Returns the top edge of the text block, relative to the view showing the prompt **/
+  public int getTextTop() {
+    return textBounds.top;
+  }
+
+  public int getTextAlpha() {
+    return textAlpha;
+  }
+
+  /** Returns the vertical space between the title, the description and the confirm label **/
+  public int getTextSpacing() {
+    return TEXT_SPACING;
+  }
+
+  @Nullable
+  public Layout getTitleLayout() {
+    return titleLayout;
+  }
+
+  @Nullable
+  public Layout getDescriptionLayout() {
+    return descriptionLayout;
+  }
+
+  /** Returns the confirm label's layout. Only set when there is a description as well **/
+  @Nullable
+  public Layout getConfirmLabelLayout() {
+    return confirmLabelLayout;
+  }
+
+  /** Returns the target's icon tinted with the outer circle color, if it asked to be tinted **/
+  @Nullable
+  public Bitmap getTintedIcon() {
+    return tintedTarget;
+  }
+
+  /** Returns the target's icon as given, to be drawn when there is no tinted icon **/
+  @Nullable
+  public Drawable getIcon() {
+    return target.icon;
+  }
+
+  /** Lays the text out to fit a view of the given width, keeping the layouts while it stays the same **/
+  void layoutText(int width) {
+    final int textWidth = Math.min(width, TEXT_MAX_WIDTH) - TEXT_PADDING * 2;
+    if (textWidth <= 0 || textWidth == layoutWidth) {
+      return;
+    }
+
+    layoutWidth = textWidth;
+    titleLayout = layout(target.title, titlePaint, textWidth);
+    descriptionLayout = layout(target.description, descriptionPaint, textWidth);
+    // Only drawn below a description
+    confirmLabelLayout = descriptionLayout != null
+        ? layout(target.confirmLabel, confirmLabelPaint, textWidth) : null;
+  }
+
+  @Nullable
+  static StaticLayout layout(@Nullable CharSequence text, TextPaint paint, int width) {
+    if (text == null) return null;
+    return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
+  }
+
+  /** Draws the tinted icon once, if the target asks for one **/
+  void prepareTintedTarget() {
+    final Drawable icon = target.icon;
+    if (!target.tintTarget || icon == null || tintedTarget != null) {
+      return;
+    }
+
+    tintedTarget = Bitmap.createBitmap(icon.getIntrinsicWidth(), icon.getIntrinsicHeight(),
+        Bitmap.Config.ARGB_8888);
+    final Canvas canvas = new Canvas(tintedTarget);
+    icon.setColorFilter(new PorterDuffColorFilter(
+        outerCirclePaint.getColor(), PorterDuff.Mode.SRC_ATOP));
+    icon.draw(canvas);
+    icon.setColorFilter(null);
+  }
+
+  /**
+   * Places the text and the outer circle around the target, whose bounds are given relative to a
+   * view of the given size. The boundaries are 0 if the prompt is not bounded
+   */
+  void place(Rect bounds, int width, int height, int topBoundary, int bottomBoundary) {
+    targetBounds.set(bounds);
+
+    final int totalTextHeight = getTotalTextHeight();
+    geometry.textBounds(targetBounds.centerX(), targetBounds.centerY(),
+        getTotalTextWidth(), totalTextHeight, width, topBoundary, placedTextBounds);
+    textBounds.set(placedTextBounds[0], placedTextBounds[1], placedTextBounds[2], placedTextBounds[3]);
+
+    final int titleHeight = titleLayout == null ? 0 : titleLayout.getHeight();
+    geometry.outerCircleCenter(targetBounds.left, targetBounds.top, targetBounds.right, targetBounds.bottom,
+        textBounds.left, textBounds.right, totalTextHeight, titleHeight,
+        height, bottomBoundary, outerCircleCenter);
+    calculatedOuterCircleRadius = geometry.outerCircleRadius(outerCircleCenter[0], outerCircleCenter[1],
+        textBounds.left, textBounds.top, textBounds.right, textBounds.bottom,
+        targetBounds.centerX(), targetBounds.centerY());
+    placed = true;
+  }
+
+  int getTotalTextHeight() {
+    if (titleLayout == null) {
+      return 0;
+    }
+
+    if (descriptionLayout == null) {
+      return titleLayout.getHeight() + TEXT_SPACING;
+    }
+
+    if (confirmLabelLayout == null) {
+      return titleLayout.getHeight() + descriptionLayout.getHeight() + TEXT_SPACING;
+    }
+
+    return titleLayout.getHeight() + descriptionLayout.getHeight() + confirmLabelLayout.getHeight() + TEXT_SPACING * 2;
+  }
+
+  int getTotalTextWidth() {
+    if (titleLayout == null) {
+      return 0;
+    }
+
+    if (descriptionLayout == null) {
+      return titleLayout.getWidth();
+    }
+
+    int maxTitleDescriptionWidth = Math.max(titleLayout.getWidth(), descriptionLayout.getWidth());
+    if (confirmLabelLayout == null) {
+      return maxTitleDescriptionWidth;
+    }
+
+    return Math.max(maxTitleDescriptionWidth, confirmLabelLayout.getWidth());
+  }
+
+  void setOuterCircleRadius(float radius) {
+    outerCircleRadius = radius;
+    outerCirclePath.reset();
+    outerCirclePath.addCircle(outerCircleCenter[0], outerCircleCenter[1], outerCircleRadius, Path.Direction.CW);
+  }
+
+  /** Returns whether {@link #expand(float)} with the given progress grows the outer circle **/
+  boolean isExpanding(float lerpTime) {
+    return calculatedOuterCircleRadius * lerpTime > outerCircleRadius;
+  }
+
+  /** Applies the progress of the expand animation, which the dismiss animation plays in reverse **/
+  void expand(float lerpTime) {
+    final boolean expanding = isExpanding(lerpTime);
+    final float targetAlpha = target.outerCircleAlpha * 255;
+    setOuterCircleRadius(calculatedOuterCircleRadius * lerpTime);
+    outerCircleAlpha = (int) Math.min(targetAlpha, (lerpTime * 1.5f * targetAlpha));
+
+    targetCircleAlpha = (int) Math.min(255.0f, (lerpTime * 1.5f * 255.0f));
+
+    if (expanding) {
+      float scaleFactor = Math.min(1.0f, lerpTime * 1.5f);
+      targetCircleRadius = TARGET_RADIUS * scaleFactor;
+      targetCircleWidth = TARGET_WIDTH * scaleFactor;
+      targetCircleHeight = TARGET_HEIGHT * scaleFactor;
+    } else {
+      targetCircleRadius = TARGET_RADIUS * lerpTime;
+      targetCircleWidth = TARGET_WIDTH * lerpTime;
+      targetCircleHeight = TARGET_HEIGHT * lerpTime;
+      targetCirclePulseRadius *= lerpTime;
+      targetCirclePulseWidth *= lerpTime;
+      targetCirclePulseHeight *= lerpTime;
+    }
+
+    textAlpha = (int) (PromptGeometry.delayedLerp(lerpTime, 0.7f) * 255);
+  }
+
+  /** Applies the progress of a pulse cycle to the target and, if enabled, the pulse around it **/
+  void pulse(float lerpTime) {
+    final float pulseLerp = PromptGeometry.delayedLerp(lerpTime, 0.5f);
+    targetCirclePulseRadius = (1.0f + pulseLerp) * TARGET_RADIUS;
+    float pulseDr = targetCirclePulseRadius - TARGET_RADIUS;
+    targetCirclePulseWidth = TARGET_WIDTH + 2 * pulseDr;
+    targetCirclePulseHeight = TARGET_HEIGHT + 2 * pulseDr;
+    targetCirclePulseAlpha = target.targetPulseEnabled ? (int) ((1.0f - pulseLerp) * 255) : 0;
+
+    float targetDr = PromptGeometry.halfwayLerp(lerpTime) * TARGET_PULSE_RADIUS;
+
+    targetCircleRadius = TARGET_RADIUS + targetDr;
+    targetCircleWidth = TARGET_WIDTH + targetDr * 2;
+    targetCircleHeight = TARGET_HEIGHT + targetDr * 2;
+
+    if (outerCircleRadius != calculatedOuterCircleRadius) {
+      setOuterCircleRadius(calculatedOuterCircleRadius);
+    }
+  }
+
+  /** Settles the target back at its resting size once the pulse stops **/
+  void settle() {
+    targetCircleRadius = TARGET_RADIUS;
+    targetCircleWidth = TARGET_WIDTH;
+    targetCircleHeight = TARGET_HEIGHT;
+    targetCirclePulseAlpha = 0;
+  }
+
+  /** Applies the progress of the animation played when the target is tapped **/
+  void confirmDismiss(float lerpTime) {
+    final float spedUpLerp = Math.min(1.0f, lerpTime * 2.0f);
+    setOuterCircleRadius(calculatedOuterCircleRadius * (1.0f + (spedUpLerp * 0.2f)));
+    outerCircleAlpha = (int) ((1.0f - spedUpLerp) * target.outerCircleAlpha * 255.0f);
+    targetCircleRadius = (1.0f - lerpTime) * TARGET_RADIUS;
+    targetCircleWidth = (1.0f - lerpTime) * TARGET_WIDTH;
+    targetCircleHeight = (1.0f - lerpTime) * TARGET_HEIGHT;
+    targetCircleAlpha = (int) ((1.0f - lerpTime) * 255.0f);
+    targetCirclePulseRadius = (1.0f + lerpTime) * TARGET_RADIUS;
+    targetCirclePulseWidth = (1.0f + lerpTime) * TARGET_WIDTH;
+    targetCirclePulseHeight = (1.0f + lerpTime) * TARGET_HEIGHT;
+    targetCirclePulseAlpha = (int) ((1.0f - lerpTime) * targetCirclePulseAlpha);
+    textAlpha = (int) ((1.0f - spedUpLerp) * 255.0f);
+  }
+
+  /** Writes the area the prompt currently covers in a view of the given size into the given rect **/
+  void drawingBounds(int width, int height, Rect out) {
+    out.left = (int) Math.max(0, outerCircleCenter[0] - outerCircleRadius);
+    out.top = (int) Math.min(0, outerCircleCenter[1] - outerCircleRadius);
+    out.right = (int) Math.min(width, outerCircleCenter[0] + outerCircleRadius + CIRCLE_PADDING);
+    out.bottom = (int) Math.min(height, outerCircleCenter[1] + outerCircleRadius + CIRCLE_PADDING);
+  }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+/**
+ * The layout and hit-testing math behind {@link TapTargetView}.
+ * <p>
+ * This class deliberately only deals in primitives and has no Android dependencies, so that it
+ * can be exercised on a plain JVM (see the benchmark module). Rectangles are passed as
+ * {@code left, top, right, bottom} and results are written into caller provided arrays.
+ */
+final class PromptGeometry {
+  final int targetPadding;
+  final int targetRadius;
+  final int textPadding;
+  final int textPositioningBias;
+  final int circlePadding;
+  final int gutterDim;
+
+  PromptGeometry(int targetPadding, int targetRadius, int textPadding, int textPositioningBias,
+                 int circlePadding, int gutterDim) {
+    this.targetPadding = targetPadding;
+    this.targetRadius = targetRadius;
+    this.textPadding = textPadding;
+    this.textPositioningBias = textPositioningBias;
+    this.circlePadding = circlePadding;
+    this.gutterDim = gutterDim;
+  }
+
+  /** Writes the bounds of the text block into {@code out} as {@code [left, top, right, bottom]} **/
+  void textBounds(int targetCenterX, int targetCenterY, int totalTextWidth, int totalTextHeight,
+                  int width, int topBoundary, int[] out) {
+    final int possibleTop = targetCenterY - targetRadius - targetPadding - totalTextHeight;
+    final int top;
+    if (possibleTop > topBoundary) {
+      top = possibleTop;
+    } else {
+      top = targetCenterY + targetRadius + targetPadding;
+    }
+
+    final int relativeCenterDistance = (width / 2) - targetCenterX;
+    final int bias = relativeCenterDistance < 0 ? -textPositioningBias : textPositioningBias;
+    final int left = Math.max(textPadding, targetCenterX - bias - totalTextWidth);
+    final int right = Math.min(width - textPadding, left + totalTextWidth);
+
+    out[0] = left;
+    out[1] = top;
+    out[2] = right;
+    out[3] = top + totalTextHeight;
+  }
+
+  /** Writes the center of the outer circle into {@code out} as {@code [x, y]} **/
+  void outerCircleCenter(int targetLeft, int targetTop, int targetRight, int targetBottom,
+                         int textLeft, int textRight, int totalTextHeight, int titleHeight,
+                         int height, int bottomBoundary, int[] out) {
+    final int targetCenterX = (targetLeft + targetRight) >> 1;
+    final int targetCenterY = (targetTop + targetBottom) >> 1;
+    if (inGutter(targetCenterY, height, bottomBoundary)) {
+      out[0] = targetCenterX;
+      out[1] = targetCenterY;
+      return;
+    }
+
+    final int targetRadius = Math.max(targetRight - targetLeft, targetBottom - targetTop) / 2
+        + targetPadding;
+    final boolean onTop = targetCenterY - this.targetRadius - targetPadding - totalTextHeight > 0;
+
+    final int left = Math.min(textLeft, targetLeft - targetRadius);
+    final int right = Math.max(textRight, targetRight + targetRadius);
+    final int centerY = onTop ?
+        targetCenterY - this.targetRadius - targetPadding - totalTextHeight + titleHeight
+        :
+        targetCenterY + this.targetRadius + targetPadding + titleHeight;
+
+    out[0] = (left + right) / 2;
+    out[1] = centerY;
+  }
+
+  /** Returns the radius the outer circle needs to enclose both the text and the target **/
+  int outerCircleRadius(int centerX, int centerY,
+                        int textLeft, int textTop, int textRight, int textBottom,
+                        int targetCenterX, int targetCenterY) {
+    final int expandedRadius = (int) (1.1f * targetRadius);
+
+    final int textRadius = maxDistanceToPoints(centerX, centerY,
+        textLeft, textTop, textRight, textBottom);
+    final int targetRadius = maxDistanceToPoints(centerX, centerY,
+        targetCenterX - expandedRadius, targetCenterY - expandedRadius,
+        targetCenterX + expandedRadius, targetCenterY + expandedRadius);
+    return Math.max(textRadius, targetRadius) + circlePadding;
+  }
+
+  boolean inGutter(int y, int height, int bottomBoundary) {
+    if (bottomBoundary > 0) {
+      return y < gutterDim || y > bottomBoundary - gutterDim;
+    } else {
+      return y < gutterDim || y > height - gutterDim;
+    }
+  }
+
+  /** Returns whether the given point lies within the target shape centered at the given point **/
+  static boolean inTarget(int x, int y, int targetCenterX, int targetCenterY,
+                          float targetWidth, float targetHeight) {
+    return Math.abs(x - targetCenterX) < targetWidth / 2
+        && Math.abs(y - targetCenterY) < targetHeight / 2;
+  }
+
+  /** Returns whether the given point lies within the given circle **/
+  static boolean inCircle(int x, int y, int centerX, int centerY, float radius) {
+    return distance(centerX, centerY, x, y) <= radius;
+  }
+
+  static int maxDistanceToPoints(int x1, int y1, int left, int top, int right, int bottom) {
+    final double tl = distance(x1, y1, left, top);
+    final double tr = distance(x1, y1, right, top);
+    final double bl = distance(x1, y1, left, bottom);
+    final double br = distance(x1, y1, right, bottom);
+    return (int) Math.max(tl, Math.max(tr, Math.max(bl, br)));
+  }
+
+  static double distance(int x1, int y1, int x2, int y2) {
+    return Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
+  }
+
+  static float halfwayLerp(float lerp) {
+    if (lerp < 0.5f) {
+      return lerp / 0.5f;
+    }
+
+    return (1.0f - lerp) / 0.5f;
+  }
+
+  static float delayedLerp(float lerp, float threshold) {
+    if (lerp < threshold) {
+      return 0.0f;
+    }
+
+    return (lerp - threshold) / (1.0f - threshold);
+  }
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import android.support.annotation.Nullable;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.WeakHashMap;
+
+/**
+ * Drives the pulse of every prompt sharing an {@link AnimationClock} on one thread, so that any
+ * number of visible prompts costs a single frame callback and they all pulse in phase.
+ * <p>
+ * The pulse value is computed once per frame and handed to each subscriber. The ticker schedules
+ * frames while it has subscribers and stops as soon as the last one leaves. It must only be used
+ * from the thread it was obtained on.
+ * <p>
+ * Each pulse lasts {@link #DURATION} multiplied by the {@link #setDurationScale(float) duration
+ * scale}. Prompts don't subscribe while the scale is 0, as there is no pulse to show then.
+ */
+final class PulseTicker implements Runnable {
+  static final long DURATION = 1000;
+
+  interface Listener {
+    /**
+     * Called once per frame with the interpolated progress through the current pulse, and the
+     * number of pulses completed since the ticker started
+     */
+    void onPulse(float lerpTime, long cycle);
+  }
+
+  private static final ThreadLocal<WeakHashMap<AnimationClock, PulseTicker>> TICKERS =
+      new ThreadLocal<WeakHashMap<AnimationClock, PulseTicker>>() {
+        @Override
+        protected WeakHashMap<AnimationClock, PulseTicker> initialValue() {
+          return new WeakHashMap<>();
+        }
+      };
+
+  // Held weakly so that the entry of this ticker leaves TICKERS together with its clock
+  private final WeakReference<AnimationClock> clock;
+  private final Interpolator interpolator = new AccelerateDecelerateInterpolator();
+  private final ArrayList<Listener> listeners = new ArrayList<>();
+  private final ArrayList<Listener> dispatching = new ArrayList<>();
+  private long duration = DURATION;
+  private long startTime;
+  private boolean scheduled;
+
+  private PulseTicker(AnimationClock clock) {
+    this.clock = new WeakReference<>(clock);
+  }
+
+  /** Returns the ticker for the given clock on the calling thread, creating it if needed **/
+  static PulseTicker forClock(AnimationClock clock) {
+    final WeakHashMap<AnimationClock, PulseTicker> tickers = TICKERS.get();
+    PulseTicker ticker = tickers.get(clock);
+    if (ticker == null) {
+      ticker = new PulseTicker(clock);
+      tickers.put(clock, ticker);
+    }
+    return ticker;
+  }
+
+  /** Sets the scale applied to the length of a pulse, which must be positive **/
+  void setDurationScale(float scale) {
+    if (scale <= 0) throw new IllegalArgumentException("Pulse duration scale must be positive");
+    duration = Math.max(1, (long) (DURATION * scale));
+  }
+
+  /** Starts delivering pulses to the given listener, joining the pulse already in progress **/
+  void subscribe(Listener listener) {
+    if (listeners.contains(listener)) return;
+
+    final AnimationClock clock = this.clock.get();
+    if (clock == null) return;
+
+    if (listeners.isEmpty()) {
+      startTime = clock.uptimeMillis();
+    }
+    listeners.add(listener);
+    schedule(clock);
+  }
+
+  /** Stops delivering pulses to the given listener, stopping the ticker if it was the last one **/
+  void unsubscribe(@Nullable Listener listener) {
+    if (!listeners.remove(listener) || !listeners.isEmpty()) return;
+
+    scheduled = false;
+    final AnimationClock clock = this.clock.get();
+    if (clock != null) {
+      clock.cancelFrame(this);
+    }
+  }
+
+  boolean isSubscribed(Listener listener) {
+    return listeners.contains(listener);
+  }
+
+  @Override
+  public void run() {
+    scheduled = false;
+    final AnimationClock clock = this.clock.get();
+    if (clock == null || listeners.isEmpty()) return;
+
+    final long elapsed = Math.max(0, clock.uptimeMillis() - startTime);
+    final long cycle = elapsed / duration;
+    final float lerpTime = interpolator.getInterpolation((elapsed % duration) / (float) duration);
+
+    // Listeners commonly unsubscribe themselves, or others, while being notified
+    dispatching.addAll(listeners);
+    for (int i = 0; i < dispatching.size(); ++i) {
+      final Listener listener = dispatching.get(i);
+      if (listeners.contains(listener)) {
+        listener.onPulse(lerpTime, cycle);
+      }
+    }
+    dispatching.clear();
+
+    if (!listeners.isEmpty()) {
+      schedule(clock);
+    }
+  }
+
+  private void schedule(AnimationClock clock) {
+    if (scheduled) return;
+    scheduled = true;
+    clock.scheduleFrame(this);
+  }
+}
@@ -16,16 +16,56 @@
 package com.getkeepsafe.taptargetview;
 
 import java.lang.reflect.Field;
+import java.util.HashMap;
 
 class ReflectUtil {
+  // Fields by declaring or inheriting class and name. Null values mark fields that don't exist
+  private static final HashMap<Class<?>, HashMap<String, Field>> fields = new HashMap<>();
+
   ReflectUtil() {
   }
 
   /** Returns the value of the given private field from the source object **/
   static Object getPrivateField(Object source, String fieldName)
       throws NoSuchFieldException, IllegalAccessException {
-    final Field objectField = source.getClass().getDeclaredField(fieldName);
-    objectField.setAccessible(true);
+    final Field objectField = findField(source.getClass(), fieldName);
+    if (objectField == null) {
+      throw new NoSuchFieldException(fieldName);
+    }
     return objectField.get(source);
   }
+
+  /**
+   * Returns the accessible field with the given name from the given class or the closest of its
+   * superclasses, or null if there is none. Both hits and misses are cached
+   */
+  static Field findField(Class<?> type, String fieldName) {
+    synchronized (fields) {
+      HashMap<String, Field> classFields = fields.get(type);
+      if (classFields == null) {
+        classFields = new HashMap<>();
+        fields.put(type, classFields);
+      } else if (classFields.containsKey(fieldName)) {
+        return classFields.get(fieldName);
+      }
+
+      final Field field = searchField(type, fieldName);
+      classFields.put(fieldName, field);
+      return field;
+    }
+  }
+
+  private static Field searchField(Class<?> type, String fieldName) {
+    // Scanning the declared fields avoids a NoSuchFieldException for every class that lacks it
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (final Field field : current.getDeclaredFields()) {
+        if (field.getName().equals(fieldName)) {
+          field.setAccessible(true);
+          return field;
+        }
+      }
+    }
+
+    return null;
+  }
 }
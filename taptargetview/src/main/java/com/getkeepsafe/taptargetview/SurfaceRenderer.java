@@ -0,0 +1,187 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.annotation.TargetApi;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.SurfaceTexture;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.view.Surface;
+import android.view.TextureView;
+import android.view.ViewGroup;
+
+/**
+ * Renders a {@link TapTargetView} on a dedicated thread into a {@link TextureView} that sits on
+ * top of it, so that its animations keep their frame rate while the main thread is busy.
+ * <p>
+ * The view's animators are driven by this renderer's looper, and every drawn frame publishes a
+ * {@link FrameState} snapshot that the main thread reads to hit-test touches. Requires a hardware
+ * canvas, as rasterizing a full screen overlay in software every frame costs more than it saves.
+ */
+@TargetApi(Build.VERSION_CODES.M)
+class SurfaceRenderer implements TextureView.SurfaceTextureListener {
+  final TapTargetView view;
+  final TextureView textureView;
+
+  private final HandlerThread thread;
+  private final Handler handler;
+
+  private final Object surfaceLock = new Object();
+  @Nullable
+  private Surface surface;
+
+  private final Object stateLock = new Object();
+  private FrameState frontState = new FrameState();
+  private FrameState backState = new FrameState();
+
+  // Only accessed on the render thread
+  private boolean renderPending;
+
+  private final Runnable renderRunnable = new Runnable() {
+    @Override
+    public void run() {
+      renderPending = false;
+      render();
+    }
+  };
+
+  private final Runnable requestRenderRunnable = new Runnable() {
+    @Override
+    public void run() {
+      requestRender();
+    }
+  };
+
+  SurfaceRenderer(TapTargetView view) {
+    this.view = view;
+    this.textureView = new TextureView(view.getContext());
+    this.textureView.setOpaque(false);
+    this.textureView.setSurfaceTextureListener(this);
+
+    this.thread = new HandlerThread("TapTargetView");
+    this.thread.start();
+    this.handler = new Handler(thread.getLooper());
+  }
+
+  /** Adds the texture view right above the rendered view **/
+  void attach(ViewGroup parent) {
+    final int index = parent.indexOfChild(view);
+    parent.addView(textureView, index < 0 ? -1 : index + 1, new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+  }
+
+  /**
+   * Removes the texture view and stops the render thread once its pending work is done. The
+   * removal is posted, as this is called while the parent may still be dispatching detach events
+   */
+  void release(final ViewGroup parent) {
+    new Handler(Looper.getMainLooper()).post(new Runnable() {
+      @Override
+      public void run() {
+        ViewUtil.removeView(parent, textureView);
+      }
+    });
+    handler.post(new Runnable() {
+      @Override
+      public void run() {
+        thread.quitSafely();
+      }
+    });
+  }
+
+  /** Runs the given runnable on the render thread **/
+  void post(Runnable runnable) {
+    handler.post(runnable);
+  }
+
+  /** Schedules a frame. Must be called on the render thread **/
+  void requestRender() {
+    if (renderPending) return;
+    renderPending = true;
+    handler.post(renderRunnable);
+  }
+
+  /** Copies the most recently rendered state into the given instance **/
+  void copyState(FrameState out) {
+    synchronized (stateLock) {
+      out.set(frontState);
+    }
+  }
+
+  void render() {
+    synchronized (surfaceLock) {
+      if (surface == null || !surface.isValid()) {
+        return;
+      }
+
+      final Canvas canvas;
+      try {
+        canvas = surface.lockHardwareCanvas();
+      } catch (IllegalStateException e) {
+        // The surface went away between the validity check and the lock
+        return;
+      }
+
+      try {
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        view.drawPrompt(canvas);
+      } finally {
+        surface.unlockCanvasAndPost(canvas);
+      }
+    }
+
+    backState.set(view.frame);
+    synchronized (stateLock) {
+      final FrameState rendered = backState;
+      backState = frontState;
+      frontState = rendered;
+    }
+  }
+
+  @Override
+  public void onSurfaceTextureAvailable(SurfaceTexture surfaceTexture, int width, int height) {
+    synchronized (surfaceLock) {
+      surface = new Surface(surfaceTexture);
+    }
+    handler.post(requestRenderRunnable);
+  }
+
+  @Override
+  public void onSurfaceTextureSizeChanged(SurfaceTexture surfaceTexture, int width, int height) {
+    handler.post(requestRenderRunnable);
+  }
+
+  @Override
+  public boolean onSurfaceTextureDestroyed(SurfaceTexture surfaceTexture) {
+    synchronized (surfaceLock) {
+      if (surface != null) {
+        surface.release();
+        surface = null;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void onSurfaceTextureUpdated(SurfaceTexture surfaceTexture) {
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * The default {@link AnimationClock}. Frames are driven by the calling thread's
+ * {@link Choreographer}, or by its looper before Jelly Bean, so like a
+ * {@link android.animation.ValueAnimator} it must be used from a thread with a looper.
+ */
+class SystemAnimationClock implements AnimationClock {
+  // Matches the frame delay ValueAnimator used before frames were synced to vsync
+  static final long FRAME_DELAY = 10;
+
+  private final ThreadLocal<FrameQueue> queues = new ThreadLocal<FrameQueue>() {
+    @Override
+    protected FrameQueue initialValue() {
+      return new FrameQueue();
+    }
+  };
+
+  @Override
+  public long uptimeMillis() {
+    return SystemClock.uptimeMillis();
+  }
+
+  @Override
+  public void scheduleFrame(Runnable callback) {
+    queues.get().add(callback);
+  }
+
+  @Override
+  public void cancelFrame(Runnable callback) {
+    queues.get().remove(callback);
+  }
+
+  /** The callbacks waiting for the next frame on one thread **/
+  static class FrameQueue implements Runnable {
+    final ArrayList<Runnable> pending = new ArrayList<>();
+    final ArrayList<Runnable> running = new ArrayList<>();
+    final Handler handler = new Handler();
+    @Nullable
+    final FramePoster poster = Build.VERSION.SDK_INT >= 16 ? new FramePoster(this) : null;
+    boolean posted;
+
+    void add(Runnable callback) {
+      if (!pending.contains(callback)) {
+        pending.add(callback);
+      }
+
+      if (!posted) {
+        posted = true;
+        if (poster != null) {
+          poster.post();
+        } else {
+          handler.postDelayed(this, FRAME_DELAY);
+        }
+      }
+    }
+
+    void remove(Runnable callback) {
+      // The frame is left posted and simply finds nothing to run
+      pending.remove(callback);
+    }
+
+    @Override
+    public void run() {
+      posted = false;
+      // Callbacks scheduled while running are deferred to the frame after this one
+      running.addAll(pending);
+      pending.clear();
+      for (int i = 0; i < running.size(); ++i) {
+        running.get(i).run();
+      }
+      running.clear();
+    }
+  }
+
+  /** Kept apart from {@link FrameQueue} so that the latter still loads before Jelly Bean **/
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+  static class FramePoster implements Choreographer.FrameCallback {
+    final Runnable frame;
+
+    FramePoster(Runnable frame) {
+      this.frame = frame;
+    }
+
+    void post() {
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      frame.run();
+    }
+  }
+}
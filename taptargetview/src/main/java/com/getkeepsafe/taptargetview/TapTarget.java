@@ -15,7 +15,6 @@
  */
 package com.getkeepsafe.taptargetview;
 
-import android.content.Context;
 import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
@@ -24,7 +23,6 @@ import android.support.annotation.ColorRes;
 import android.support.annotation.DimenRes;
 import android.support.annotation.IdRes;
 import android.support.annotation.Nullable;
-import android.support.v4.content.ContextCompat;
 import android.support.v7.widget.Toolbar;
 import android.view.View;
 
@@ -52,6 +50,17 @@ public class TapTarget {
   int targetHeight;
 
   boolean targetPulseEnabled = true;
+  int pulseFrameRate = 0;
+  int pulseCycles = 0;
+  long pulseIdleTimeout = 0;
+  boolean renderThreadAnimations = false;
+  boolean renderOffMainThread = false;
+  boolean trackTarget = false;
+  @Nullable
+  TapTargetRenderer renderer;
+  AnimationClock animationClock = AnimationClock.DEFAULT;
+  @Nullable
+  TapTargetStyle style;
 
   Rect bounds;
   Drawable icon;
@@ -205,6 +214,28 @@ public class TapTarget {
     return new TapTarget(bounds, title, description, confirmLabel);
   }
 
+  /**
+   * Return a placeholder for a target that is only created once a {@link TapTargetSequence}
+   * reaches it, e.g. for a view that doesn't exist yet. The sequence waits for the factory to
+   * provide it for up to {@link TapTargetSequence#resolveTimeout(long)}.
+   * <p>
+   * Options have to be set on the created target, as those set on the placeholder are ignored
+   */
+  public static TapTarget lazy(Factory factory) {
+    return new LazyTapTarget(factory);
+  }
+
+  /** Creates a target on demand, see {@link #lazy(Factory)} **/
+  public interface Factory {
+    /**
+     * Returns the target to show, or null if it can't be created yet. Exceptions thrown by the
+     * target factories of {@link TapTarget} because their view can't be found also count as the
+     * latter
+     */
+    @Nullable
+    TapTarget create();
+  }
+
   protected TapTarget(Rect bounds, CharSequence title, @Nullable CharSequence description,
                       @Nullable CharSequence confirmLabel) {
     this(title, description, confirmLabel);
@@ -489,89 +520,164 @@ public class TapTarget {
     return this;
   }
 
-
-  /** Return the id associated with this tap target **/
-  public int id() {
-    return id;
+  /**
+   * Specify the maximum number of frames per second drawn while pulsing. A value of 0 (the
+   * default) draws at the display's refresh rate
+   */
+  public TapTarget pulseFrameRate(int fps) {
+    if (fps < 0) throw new IllegalArgumentException("Given negative frame rate");
+    this.pulseFrameRate = fps;
+    return this;
   }
 
   /**
-   * In case your target needs time to be ready (laid out in your view, not created, etc), the
-   * runnable passed here will be invoked when the target is ready.
+   * Specify the number of pulse cycles after which the target stops pulsing. Pulsing resumes
+   * when the user touches the view. A value of 0 (the default) pulses indefinitely
    */
-  public void onReady(Runnable runnable) {
-    runnable.run();
+  public TapTarget pulseCycles(int cycles) {
+    if (cycles < 0) throw new IllegalArgumentException("Given negative cycle count");
+    this.pulseCycles = cycles;
+    return this;
   }
 
   /**
-   * Returns the target bounds. Throws an exception if they are not set
-   * (target may not be ready)
-   * <p>
-   * This will only be called internally when {@link #onReady(Runnable)} invokes its runnable
+   * Specify how long, in milliseconds, the target keeps pulsing without any user interaction.
+   * Pulsing resumes when the user touches the view. A value of 0 (the default) pulses
+   * indefinitely
    */
-  public Rect bounds() {
-    if (bounds == null) {
-      throw new IllegalStateException("Requesting bounds that are not set! Make sure your target is ready");
-    }
-    return bounds;
+  public TapTarget pulseIdleTimeout(long millis) {
+    if (millis < 0) throw new IllegalArgumentException("Given negative timeout");
+    this.pulseIdleTimeout = millis;
+    return this;
   }
 
-  @Nullable
-  Integer outerCircleColorInt(Context context) {
-    return colorResOrInt(context, outerCircleColor, outerCircleColorRes);
-  }
 
-  @Nullable
-  Integer targetCircleColorInt(Context context) {
-    return colorResOrInt(context, targetCircleColor, targetCircleColorRes);
+  /**
+   * Specify whether the outer circle should expand and dismiss via a circular reveal, which on
+   * API 21+ runs on the RenderThread and keeps animating while the UI thread is busy. Has no
+   * effect on older versions or without hardware acceleration.
+   * <p>
+   * <b>Note:</b> Text and circle fades are not animated in this mode
+   */
+  public TapTarget renderThreadAnimations(boolean enabled) {
+    this.renderThreadAnimations = enabled;
+    return this;
   }
 
-  @Nullable
-  Integer dimColorInt(Context context) {
-    return colorResOrInt(context, dimColor, dimColorRes);
+  /**
+   * Specify whether the prompt should be rendered on its own thread into a
+   * {@link android.view.TextureView}, keeping its animations at full frame rate while the main
+   * thread is busy. Touches are still handled on the main thread. Requires API 23+ and hardware
+   * acceleration, and only applies to prompts shown within an activity.
+   */
+  public TapTarget renderOffMainThread(boolean enabled) {
+    this.renderOffMainThread = enabled;
+    return this;
   }
 
-  @Nullable
-  Integer titleTextColorInt(Context context) {
-    return colorResOrInt(context, titleTextColor, titleTextColorRes);
+  /**
+   * Specify whether the prompt should follow its target while shown, such as a view that scrolls,
+   * animates or moves with a collapsing toolbar. The target's position is read before every frame
+   * and only the geometry depending on it is recomputed. Only targets for views and toolbar items
+   * can move
+   */
+  public TapTarget trackTarget(boolean enabled) {
+    this.trackTarget = enabled;
+    return this;
   }
 
-  @Nullable
-  Integer descriptionTextColorInt(Context context) {
-    return colorResOrInt(context, descriptionTextColor, descriptionTextColorRes);
+  /**
+   * Specify the renderer used to draw the prompt, such as {@link TapTargetRenderer#FLAT} for
+   * low-end devices. Defaults to {@link TapTargetRenderer#DEFAULT}
+   */
+  public TapTarget renderer(TapTargetRenderer renderer) {
+    if (renderer == null) throw new IllegalArgumentException("Cannot use a null renderer");
+    this.renderer = renderer;
+    return this;
   }
 
-  @Nullable
-  Integer confirmLabelTextColorInt(Context context) {
-    return colorResOrInt(context, confirmLabelTextColor, confirmLabelTextColorRes);
+  /**
+   * Specify the clock timing this target's animations, such as a {@link ManualAnimationClock} to
+   * step through them in tests. Defaults to {@link AnimationClock#DEFAULT}, which follows the
+   * system's animator duration scale like platform animations do. Other clocks are never scaled
+   */
+  public TapTarget animationClock(AnimationClock clock) {
+    if (clock == null) throw new IllegalArgumentException("Cannot use a null clock");
+    this.animationClock = clock;
+    return this;
   }
 
-  int titleTextSizePx(Context context) {
-    return dimenOrSize(context, titleTextSize, titleTextDimen);
+  /**
+   * Specify a shared style for this target's colors, text sizes and typefaces.
+   * <p>
+   * <b>Note:</b> The style takes the place of all of these options, so any colors, text sizes or
+   * typefaces set directly on this target, before or after this call, are ignored while it has a
+   * style. Set them on the {@link TapTargetStyle.Builder} instead
+   */
+  public TapTarget style(TapTargetStyle style) {
+    if (style == null) throw new IllegalArgumentException("Cannot use a null style");
+    this.style = style;
+    return this;
   }
 
-  int descriptionTextSizePx(Context context) {
-    return dimenOrSize(context, descriptionTextSize, descriptionTextDimen);
+  /** Return the id associated with this tap target **/
+  public int id() {
+    return id;
   }
 
-  int confirmLabelTextSizePx(Context context) {
-    return dimenOrSize(context, confirmLabelTextSize, confirmLabelTextDimen);
+  /**
+   * In case your target needs time to be ready (laid out in your view, not created, etc), the
+   * runnable passed here will be invoked when the target is ready.
+   */
+  public void onReady(Runnable runnable) {
+    runnable.run();
   }
 
-  @Nullable
-  private Integer colorResOrInt(Context context, @Nullable Integer value, @ColorRes int resource) {
-    if (resource != -1) {
-      return ContextCompat.getColor(context, resource);
+  /**
+   * Returns the target bounds. Throws an exception if they are not set
+   * (target may not be ready)
+   * <p>
+   * This will only be called internally when {@link #onReady(Runnable)} invokes its runnable
+   */
+  public Rect bounds() {
+    if (bounds == null) {
+      throw new IllegalStateException("Requesting bounds that are not set! Make sure your target is ready");
     }
-
-    return value;
+    return bounds;
   }
 
-  private int dimenOrSize(Context context, int size, @DimenRes int dimen) {
-    if (dimen != -1) {
-      return context.getResources().getDimensionPixelSize(dimen);
-    }
-
-    return UiUtil.sp(context, size);
+  /**
+   * Writes the target's current bounds in screen coordinates into the given rect. Returns false
+   * if they could not be read, as is the case for targets whose bounds never change
+   */
+  boolean readBounds(Rect out) {
+    return false;
+  }
+
+  /** Returns a style builder holding this target's own color, text size and typeface options **/
+  TapTargetStyle.Builder styleBuilder() {
+    final TapTargetStyle.Builder builder = new TapTargetStyle.Builder();
+    builder.outerCircleColorRes = outerCircleColorRes;
+    builder.targetCircleColorRes = targetCircleColorRes;
+    builder.dimColorRes = dimColorRes;
+    builder.titleTextColorRes = titleTextColorRes;
+    builder.descriptionTextColorRes = descriptionTextColorRes;
+    builder.confirmLabelTextColorRes = confirmLabelTextColorRes;
+    builder.outerCircleColor = outerCircleColor;
+    builder.targetCircleColor = targetCircleColor;
+    builder.dimColor = dimColor;
+    builder.titleTextColor = titleTextColor;
+    builder.descriptionTextColor = descriptionTextColor;
+    builder.confirmLabelTextColor = confirmLabelTextColor;
+    builder.titleTextDimen = titleTextDimen;
+    builder.descriptionTextDimen = descriptionTextDimen;
+    builder.confirmLabelTextDimen = confirmLabelTextDimen;
+    builder.titleTextSize = titleTextSize;
+    builder.descriptionTextSize = descriptionTextSize;
+    builder.confirmLabelTextSize = confirmLabelTextSize;
+    builder.titleTypeface = titleTypeface;
+    builder.descriptionTypeface = descriptionTypeface;
+    builder.confirmLabelTypeface = confirmLabelTypeface;
+    return builder;
   }
 }
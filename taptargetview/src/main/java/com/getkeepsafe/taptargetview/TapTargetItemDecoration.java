@@ -0,0 +1,201 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.ColorInt;
+import android.support.annotation.IdRes;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewParent;
+
+/**
+ * Highlights rows of a {@link RecyclerView} with the pulsing target circle of a
+ * {@link TapTargetView}, e.g. to point out new features in a list, without showing a prompt for
+ * each of them.
+ * <p>
+ * All rows pulse in step with each other and with any visible prompt. The list only follows the
+ * pulse while at least one highlighted row is on screen, and drawing a row allocates nothing.
+ * Badges are drawn beneath the rows, centered on the view given to {@link #anchor(int)} or at the
+ * start of the row otherwise, so rows need a transparent background where they appear. An
+ * instance should only be added to one {@link RecyclerView} at a time.
+ * <p>
+ * <b>Note:</b> {@code com.android.support:recyclerview-v7} is not a dependency of this library,
+ * apps using this class need to depend on it themselves
+ */
+public class TapTargetItemDecoration extends RecyclerView.ItemDecoration {
+  /** Decides which rows are highlighted **/
+  public interface Filter {
+    boolean isHighlighted(int adapterPosition);
+  }
+
+  final Filter filter;
+  final int startPadding;
+  final Paint targetCirclePaint;
+  final Paint targetCirclePulsePaint;
+  final RectF shapeBounds = new RectF();
+
+  @IdRes
+  int anchorId;
+  int targetRadius;
+  float pulseLerp;
+
+  // The list being animated, cleared once no highlighted row is drawn
+  @Nullable
+  RecyclerView parent;
+  // Obtained on the first draw, on the thread the list is drawn on
+  @Nullable
+  PulseTicker pulseTicker;
+
+  final PulseTicker.Listener pulseListener = new PulseTicker.Listener() {
+    @Override
+    public void onPulse(float lerpTime, long cycle) {
+      pulseLerp = lerpTime;
+      if (parent == null || parent.getWindowToken() == null) {
+        stopPulse();
+        return;
+      }
+      parent.invalidate();
+    }
+  };
+
+  public TapTargetItemDecoration(Context context, Filter filter) {
+    if (context == null) throw new IllegalArgumentException("Context is null");
+    if (filter == null) throw new IllegalArgumentException("Given null filter");
+
+    this.filter = filter;
+    this.startPadding = UiUtil.dp(context, 16);
+    this.targetRadius = UiUtil.dp(context, 20);
+
+    targetCirclePaint = PaintTemplates.fill();
+    final int accent = UiUtil.themeIntAttr(context, "colorAccent");
+    targetCirclePaint.setColor(accent != -1 ? accent : Color.WHITE);
+    targetCirclePulsePaint = PaintTemplates.fill();
+    targetCirclePulsePaint.setColor(targetCirclePaint.getColor());
+  }
+
+  /** Specify the id of the view within each row to center the badge on **/
+  public TapTargetItemDecoration anchor(@IdRes int id) {
+    this.anchorId = id;
+    return this;
+  }
+
+  /** Specify the color of the badge. Defaults to the theme's accent color **/
+  public TapTargetItemDecoration color(@ColorInt int color) {
+    targetCirclePaint.setColor(color);
+    targetCirclePulsePaint.setColor(color);
+    return this;
+  }
+
+  /** Specify the radius of the badge in pixels **/
+  public TapTargetItemDecoration targetRadius(int px) {
+    if (px < 0) throw new IllegalArgumentException("Given negative radius");
+    this.targetRadius = px;
+    return this;
+  }
+
+  @Override
+  public void onDraw(Canvas c, RecyclerView parent, RecyclerView.State state) {
+    // Same shapes as TapTargetView's pulse, computed once for all rows
+    final float pulse = PromptGeometry.delayedLerp(pulseLerp, 0.5f);
+    final float pulseRadius = (1.0f + pulse) * targetRadius;
+    final float radius = targetRadius + PromptGeometry.halfwayLerp(pulseLerp) * 0.1f * targetRadius;
+    targetCirclePulsePaint.setAlpha((int) ((1.0f - pulse) * 255));
+
+    int drawn = 0;
+    for (int i = 0, count = parent.getChildCount(); i < count; ++i) {
+      final View child = parent.getChildAt(i);
+      final int position = parent.getChildAdapterPosition(child);
+      if (position == RecyclerView.NO_POSITION || !filter.isHighlighted(position)) {
+        continue;
+      }
+
+      final View anchor = anchorId != 0 ? child.findViewById(anchorId) : null;
+      float centerX = child.getLeft() + child.getTranslationX();
+      float centerY = child.getTop() + child.getTranslationY();
+      if (anchor != null) {
+        centerX += offsetLeft(anchor, child) + anchor.getWidth() / 2;
+        centerY += offsetTop(anchor, child) + anchor.getHeight() / 2;
+      } else {
+        centerX += startPadding + targetRadius;
+        centerY += child.getHeight() / 2;
+      }
+
+      if (pulse > 0) {
+        CanvasTapTargetRenderer.drawTargetShape(c, shapeBounds, centerX, centerY,
+            pulseRadius * 2, pulseRadius * 2, pulseRadius, targetCirclePulsePaint);
+      }
+      CanvasTapTargetRenderer.drawTargetShape(c, shapeBounds, centerX, centerY,
+          radius * 2, radius * 2, radius, targetCirclePaint);
+      ++drawn;
+    }
+
+    if (drawn > 0) {
+      startPulse(parent);
+    } else {
+      stopPulse();
+    }
+  }
+
+  void startPulse(RecyclerView parent) {
+    this.parent = parent;
+    if (pulseTicker == null) {
+      pulseTicker = PulseTicker.forClock(AnimationClock.DEFAULT);
+    }
+    pulseTicker.subscribe(pulseListener);
+  }
+
+  void stopPulse() {
+    parent = null;
+    pulseLerp = 0;
+    if (pulseTicker != null) {
+      pulseTicker.unsubscribe(pulseListener);
+    }
+  }
+
+  /** Returns the left of the view relative to the given ancestor **/
+  static int offsetLeft(View view, View ancestor) {
+    int left = 0;
+    View current = view;
+    while (current != ancestor) {
+      left += current.getLeft() + (int) current.getTranslationX();
+      final ViewParent next = current.getParent();
+      if (!(next instanceof View)) break;
+      current = (View) next;
+      left -= current.getScrollX();
+    }
+    return left;
+  }
+
+  /** Returns the top of the view relative to the given ancestor **/
+  static int offsetTop(View view, View ancestor) {
+    int top = 0;
+    View current = view;
+    while (current != ancestor) {
+      top += current.getTop() + (int) current.getTranslationY();
+      final ViewParent next = current.getParent();
+      if (!(next instanceof View)) break;
+      current = (View) next;
+      top -= current.getScrollY();
+    }
+    return top;
+  }
+}
@@ -0,0 +1,595 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.annotation.SuppressLint;
+import android.app.Activity;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.support.annotation.Nullable;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
+import android.view.animation.AccelerateDecelerateInterpolator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shows several targets at once in a single view, instead of stacking one {@link TapTargetView}
+ * per target. All targets share one hardware layer, one dim fill and one set of animators timed by
+ * the {@link AnimationClock} of the first target, and pulse in step with every other prompt.
+ * Touches are routed through a {@link TargetIndex} so that finding the touched target stays
+ * logarithmic in their number.
+ * <p>
+ * Each target keeps its own colors, text, icon and {@link TapTargetRenderer}, while the screen is
+ * dimmed with the dim color of the first target. Shadows, render thread animations and off main
+ * thread rendering are not supported here. Create one with
+ * {@link #showFor(Activity, List, Listener)}.
+ */
+@SuppressLint("ViewConstructor")
+public class TapTargetOverlay extends View {
+  @Nullable
+  final ViewGroup boundingParent;
+  @Nullable
+  final PromptBoundaries boundaries;
+  final ViewGroup parent;
+  final List<PromptFrame> frames;
+  final AnimationClock clock;
+  final float durationScale;
+  final PulseTicker pulseTicker;
+  final TargetIndex index = new TargetIndex();
+  final int dimColor;
+
+  Listener listener;
+
+  // Frames indexed by the last layout, and the buffers their bounds and hits are written to
+  final List<PromptFrame> indexedFrames = new ArrayList<>();
+  int[] frameBounds = new int[0];
+  int[] hits = new int[0];
+
+  // Frames removed by dismiss(TapTarget) that are still animating out, and their animators at the
+  // same positions
+  final List<PromptFrame> leavingFrames = new ArrayList<>();
+  final List<FloatAnimator> leaveAnimations = new ArrayList<>();
+
+  float expandLerp;
+  float pulseLerp;
+  int layoutPass;
+  int pendingFrames;
+  int topBoundary;
+  int bottomBoundary;
+  boolean visible;
+  boolean isDismissed;
+  boolean isInteractable = true;
+  boolean animationsPaused;
+  // Set from the end of the expand animation until dismissed, even while paused
+  boolean pulsing;
+
+  float lastTouchX;
+  float lastTouchY;
+
+  final int[] offset = new int[2];
+  final Rect targetBounds = new Rect();
+
+  public static TapTargetOverlay showFor(Activity activity, List<? extends TapTarget> targets) {
+    return showFor(activity, targets, null);
+  }
+
+  public static TapTargetOverlay showFor(Activity activity, List<? extends TapTarget> targets,
+                                         @Nullable Listener listener) {
+    if (activity == null) throw new IllegalArgumentException("Activity is null");
+
+    final ViewGroup decor = (ViewGroup) activity.getWindow().getDecorView();
+    final ViewGroup content = (ViewGroup) decor.findViewById(android.R.id.content);
+    final TapTargetOverlay overlay = new TapTargetOverlay(activity, decor, content, targets, listener);
+    decor.addView(overlay, new ViewGroup.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
+    return overlay;
+  }
+
+  public static class Listener {
+    /** Signals that the user has clicked inside of the given target **/
+    public void onTargetClick(TapTargetOverlay overlay, TapTarget target) {
+      overlay.dismiss(target);
+    }
+
+    /** Signals that the user clicked on the outer circle portion of the given target **/
+    public void onOuterCircleClick(TapTargetOverlay overlay, TapTarget target) {
+    }
+
+    /** If all targets are cancelable, signals that the user has clicked outside of them **/
+    public void onCancel(TapTargetOverlay overlay) {
+      overlay.dismiss();
+    }
+
+    /** Signals that the overlay has been dismissed **/
+    public void onDismissed(TapTargetOverlay overlay) {
+    }
+  }
+
+  final FloatAnimator expandAnimation = new FloatValueAnimatorBuilder()
+      .duration(250)
+      .delayBy(250)
+      .interpolator(new AccelerateDecelerateInterpolator())
+      .onUpdate(new FloatValueAnimatorBuilder.UpdateListener() {
+        @Override
+        public void onUpdate(float lerpTime) {
+          expandLerp = lerpTime;
+          for (int i = 0, count = frames.size(); i < count; ++i) {
+            frames.get(i).expand(lerpTime);
+          }
+          invalidate();
+        }
+      })
+      .onEnd(new FloatValueAnimatorBuilder.EndListener() {
+        @Override
+        public void onEnd() {
+          // Nothing pulses while animations are turned off
+          pulsing = durationScale > 0;
+          if (pulsing && !animationsPaused) {
+            pulseTicker.setDurationScale(durationScale);
+            pulseTicker.subscribe(pulseListener);
+          }
+        }
+      })
+      .build();
+
+  final PulseTicker.Listener pulseListener = new PulseTicker.Listener() {
+    @Override
+    public void onPulse(float lerpTime, long cycle) {
+      pulseLerp = lerpTime;
+      for (int i = 0, count = frames.size(); i < count; ++i) {
+        frames.get(i).pulse(lerpTime);
+      }
+      invalidate();
+    }
+  };
+
+  final FloatAnimator dismissAnimation = new FloatValueAnimatorBuilder(true)
+      .duration(250)
+      .interpolator(new AccelerateDecelerateInterpolator())
+      .onUpdate(new FloatValueAnimatorBuilder.UpdateListener() {
+        @Override
+        public void onUpdate(float lerpTime) {
+          expandLerp = lerpTime;
+          for (int i = 0, count = frames.size(); i < count; ++i) {
+            frames.get(i).expand(lerpTime);
+          }
+          invalidate();
+        }
+      })
+      .onEnd(new FloatValueAnimatorBuilder.EndListener() {
+        @Override
+        public void onEnd() {
+          onDismiss();
+          ViewUtil.removeView(parent, TapTargetOverlay.this);
+        }
+      })
+      .build();
+
+  private final FloatAnimator[] animators = {expandAnimation, dismissAnimation};
+
+  private final ViewTreeObserver.OnGlobalLayoutListener globalLayoutListener =
+      new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+          requestLayoutFrames();
+        }
+      };
+
+  /**
+   * This constructor should only be used directly for very specific use cases not covered by
+   * the static factory methods.
+   *
+   * @param context The host context
+   * @param parent The parent that this overlay will become a child of
+   * @param boundingParent Optional. Used to keep the prompts clear of system ui, see
+   *                       {@link TapTargetView#TapTargetView}
+   * @param targets The targets to show, drawn in the given order
+   * @param userListener Optional. The {@link Listener} instance for this overlay
+   */
+  public TapTargetOverlay(Context context, ViewGroup parent, @Nullable ViewGroup boundingParent,
+                          List<? extends TapTarget> targets, @Nullable Listener userListener) {
+    super(context);
+    if (targets == null || targets.isEmpty()) {
+      throw new IllegalArgumentException("No targets given");
+    }
+
+    this.parent = parent;
+    this.boundingParent = boundingParent;
+    this.boundaries = boundingParent != null ? new PromptBoundaries(this, boundingParent) : null;
+    this.listener = userListener != null ? userListener : new Listener();
+
+    final List<PromptFrame> frames = new ArrayList<>(targets.size());
+    int dimColor = -1;
+    for (final TapTarget target : targets) {
+      if (target == null) throw new IllegalArgumentException("Given null target");
+      if (target instanceof LazyTapTarget) {
+        throw new IllegalArgumentException("Lazy targets can only be shown by a TapTargetSequence");
+      }
+      final TapTargetStyle style = target.style != null ? target.style : target.styleBuilder().build(context);
+      if (frames.isEmpty()) {
+        dimColor = style.dimColor;
+      }
+      frames.add(new PromptFrame(context, target, style, target.style == null));
+    }
+    this.frames = frames;
+    this.dimColor = dimColor;
+
+    clock = frames.get(0).target.animationClock;
+    // As with ValueAnimator, animations on the system clock follow the animator duration scale
+    durationScale = clock == AnimationClock.DEFAULT ? UiUtil.animatorDurationScale(context) : 1.0f;
+    for (final FloatAnimator animator : animators) {
+      animator.setClock(clock);
+      animator.setDurationScale(durationScale);
+    }
+    pulseTicker = PulseTicker.forClock(clock);
+
+    // One layer for all targets, which transparent targets also need to clear through the others
+    setLayerType(LAYER_TYPE_HARDWARE, null);
+    getViewTreeObserver().addOnGlobalLayoutListener(globalLayoutListener);
+
+    setFocusableInTouchMode(true);
+    setClickable(true);
+    setOnClickListener(new OnClickListener() {
+      @Override
+      public void onClick(View v) {
+        onClicked((int) lastTouchX, (int) lastTouchY);
+      }
+    });
+  }
+
+  /** Returns the targets that are still shown **/
+  public List<TapTarget> getTargets() {
+    final List<TapTarget> targets = new ArrayList<>(frames.size());
+    for (final PromptFrame frame : frames) {
+      targets.add(frame.target);
+    }
+    return Collections.unmodifiableList(targets);
+  }
+
+  /** Returns whether this overlay is visible or not **/
+  public boolean isVisible() {
+    return !isDismissed && visible;
+  }
+
+  /**
+   * Removes a single target, dismissing the whole overlay once no target is left. Once the overlay
+   * is visible the removed target plays the same animation as a tapped {@link TapTargetView}
+   */
+  public void dismiss(TapTarget target) {
+    int index = -1;
+    for (int i = 0; i < frames.size(); ++i) {
+      if (frames.get(i).target == target) {
+        index = i;
+        break;
+      }
+    }
+    if (index < 0) return;
+
+    if (frames.size() == 1) {
+      // The last target leaves together with the overlay
+      dismiss();
+      return;
+    }
+
+    final PromptFrame removed = frames.remove(index);
+    if (visible && !isDismissed) {
+      animateOut(removed);
+    }
+    // The remaining targets still have to be ready before they are laid out and indexed again
+    requestLayoutFrames();
+  }
+
+  /** Plays the animation of a tapped target on the given removed frame, then drops it **/
+  void animateOut(final PromptFrame frame) {
+    final FloatAnimator animation = new FloatValueAnimatorBuilder()
+        .duration(250)
+        .interpolator(new AccelerateDecelerateInterpolator())
+        .onUpdate(new FloatValueAnimatorBuilder.UpdateListener() {
+          @Override
+          public void onUpdate(float lerpTime) {
+            frame.confirmDismiss(lerpTime);
+            invalidate();
+          }
+        })
+        .onEnd(new FloatValueAnimatorBuilder.EndListener() {
+          @Override
+          public void onEnd() {
+            final int index = leavingFrames.indexOf(frame);
+            leavingFrames.remove(index);
+            leaveAnimations.remove(index);
+            invalidate();
+          }
+        })
+        .build();
+    animation.setClock(clock);
+    animation.setDurationScale(durationScale);
+
+    leavingFrames.add(frame);
+    leaveAnimations.add(animation);
+    startAnimation(animation);
+  }
+
+  /** Dismisses all targets and removes this overlay **/
+  public void dismiss() {
+    if (isDismissed || dismissAnimation.isStarted()) return;
+
+    isInteractable = false;
+    expandAnimation.cancel();
+    pulsing = false;
+    pulseTicker.unsubscribe(pulseListener);
+    pulseLerp = 0;
+    dismissAnimation.start();
+  }
+
+  void onClicked(int x, int y) {
+    if (!isVisible() || !isInteractable) return;
+
+    final int count = index.query(x, y, hits);
+    int clickedTarget = -1;
+    int clickedOuterCircle = -1;
+    for (int i = 0; i < count; ++i) {
+      // Later targets are drawn on top, so they win
+      final int hit = hits[i];
+      final PromptFrame frame = indexedFrames.get(hit);
+      if (PromptGeometry.inTarget(x, y, frame.targetBounds.centerX(), frame.targetBounds.centerY(),
+          frame.TARGET_WIDTH, frame.TARGET_HEIGHT)) {
+        clickedTarget = Math.max(clickedTarget, hit);
+      } else if (PromptGeometry.inCircle(x, y, frame.outerCircleCenter[0], frame.outerCircleCenter[1],
+          frame.calculatedOuterCircleRadius)) {
+        clickedOuterCircle = Math.max(clickedOuterCircle, hit);
+      }
+    }
+
+    if (clickedTarget >= 0) {
+      listener.onTargetClick(this, indexedFrames.get(clickedTarget).target);
+    } else if (clickedOuterCircle >= 0) {
+      listener.onOuterCircleClick(this, indexedFrames.get(clickedOuterCircle).target);
+    } else if (isCancelable()) {
+      listener.onCancel(this);
+    }
+  }
+
+  boolean isCancelable() {
+    for (final PromptFrame frame : frames) {
+      if (!frame.target.cancelable) return false;
+    }
+    return true;
+  }
+
+  /** Asks every target for its bounds, and lays them all out once the last one answered **/
+  void requestLayoutFrames() {
+    final int pass = ++layoutPass;
+    pendingFrames = frames.size();
+    for (final PromptFrame frame : frames) {
+      frame.target.onReady(new Runnable() {
+        @Override
+        public void run() {
+          if (pass == layoutPass && --pendingFrames == 0) {
+            layoutFrames();
+          }
+        }
+      });
+    }
+  }
+
+  void layoutFrames() {
+    if (isDismissed || getWidth() == 0) return;
+
+    getLocationOnScreen(offset);
+    if (boundaries != null) {
+      boundaries.update();
+      topBoundary = boundaries.top;
+      bottomBoundary = boundaries.bottom;
+    }
+
+    final int width = getWidth();
+    final int height = getHeight();
+    if (frameBounds.length < frames.size() * 4) {
+      frameBounds = new int[frames.size() * 4];
+    }
+    final int[] bounds = frameBounds;
+    indexedFrames.clear();
+    for (int i = 0; i < frames.size(); ++i) {
+      final PromptFrame frame = frames.get(i);
+      frame.layoutText(width);
+      frame.prepareTintedTarget();
+      targetBounds.set(frame.target.bounds());
+      targetBounds.offset(-offset[0], -offset[1]);
+      frame.place(targetBounds, width, height, topBoundary, bottomBoundary);
+      applyAnimations(frame);
+
+      final int[] center = frame.outerCircleCenter;
+      final int radius = frame.calculatedOuterCircleRadius;
+      bounds[i * 4] = center[0] - radius;
+      bounds[i * 4 + 1] = center[1] - radius;
+      bounds[i * 4 + 2] = center[0] + radius + 1;
+      bounds[i * 4 + 3] = center[1] + radius + 1;
+      indexedFrames.add(frame);
+    }
+    index.build(bounds, frames.size());
+    if (hits.length < frames.size()) {
+      hits = new int[frames.size()];
+    }
+
+    if (!visible) {
+      visible = true;
+      requestFocus();
+      startAnimation(expandAnimation);
+    }
+    invalidate();
+  }
+
+  /** Brings a newly placed frame up to the current progress of the animations **/
+  void applyAnimations(PromptFrame frame) {
+    frame.expand(expandLerp);
+    if (pulsing) {
+      frame.pulse(pulseLerp);
+    }
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (boundaries != null) {
+      boundaries.requestInsets();
+    }
+  }
+
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+    if (boundaries != null) {
+      boundaries.invalidate();
+    }
+  }
+
+  @Override
+  protected void onConfigurationChanged(Configuration newConfig) {
+    super.onConfigurationChanged(newConfig);
+    if (boundaries != null) {
+      boundaries.invalidate();
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    super.onDetachedFromWindow();
+    onDismiss();
+  }
+
+  void onDismiss() {
+    if (isDismissed) return;
+
+    isDismissed = true;
+    for (final FloatAnimator animator : animators) {
+      animator.cancel();
+      animator.removeAllUpdateListeners();
+    }
+    // Ending a leave animation removes it from the list
+    for (int i = leaveAnimations.size() - 1; i >= 0; --i) {
+      leaveAnimations.get(i).cancel();
+    }
+    pulsing = false;
+    pulseTicker.unsubscribe(pulseListener);
+    ViewUtil.removeOnGlobalLayoutListener(getViewTreeObserver(), globalLayoutListener);
+    visible = false;
+
+    if (listener != null) {
+      listener.onDismissed(this);
+    }
+  }
+
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    updateAnimationsPaused();
+  }
+
+  @Override
+  public void onWindowFocusChanged(boolean hasWindowFocus) {
+    super.onWindowFocusChanged(hasWindowFocus);
+    updateAnimationsPaused();
+  }
+
+  /** Pauses the expand and pulse animations while the window is hidden or unfocused **/
+  void updateAnimationsPaused() {
+    final boolean shouldPause = getWindowVisibility() != VISIBLE || !hasWindowFocus();
+    if (isDismissed || shouldPause == animationsPaused) {
+      return;
+    }
+
+    animationsPaused = shouldPause;
+    if (animationsPaused) {
+      expandAnimation.pause();
+      for (int i = 0; i < leaveAnimations.size(); ++i) {
+        leaveAnimations.get(i).pause();
+      }
+      pulseTicker.unsubscribe(pulseListener);
+    } else {
+      expandAnimation.resume();
+      for (int i = 0; i < leaveAnimations.size(); ++i) {
+        leaveAnimations.get(i).resume();
+      }
+      if (pulsing) {
+        pulseTicker.setDurationScale(durationScale);
+        pulseTicker.subscribe(pulseListener);
+      }
+    }
+  }
+
+  void startAnimation(FloatAnimator animator) {
+    animator.start();
+    if (animationsPaused) {
+      animator.pause();
+    }
+  }
+
+  @Override
+  public boolean onTouchEvent(MotionEvent e) {
+    lastTouchX = e.getX();
+    lastTouchY = e.getY();
+    return super.onTouchEvent(e);
+  }
+
+  @Override
+  public boolean onKeyDown(int keyCode, KeyEvent event) {
+    return isVisible() && isCancelable() && ViewUtil.trackBackKey(keyCode, event);
+  }
+
+  @Override
+  public boolean onKeyUp(int keyCode, KeyEvent event) {
+    if (isVisible() && isInteractable && isCancelable() && ViewUtil.isBackKeyRelease(keyCode, event)) {
+      listener.onCancel(this);
+      return true;
+    }
+
+    return false;
+  }
+
+  @Override
+  protected void onDraw(Canvas c) {
+    if (isDismissed || !visible) return;
+
+    if (topBoundary > 0 && bottomBoundary > 0) {
+      c.clipRect(0, topBoundary, getWidth(), bottomBoundary);
+    }
+
+    if (dimColor != -1) {
+      c.drawColor(dimColor);
+    }
+
+    for (int i = 0, count = frames.size(); i < count; ++i) {
+      drawFrame(frames.get(i), c);
+    }
+    for (int i = 0, count = leavingFrames.size(); i < count; ++i) {
+      drawFrame(leavingFrames.get(i), c);
+    }
+  }
+
+  private static void drawFrame(PromptFrame frame, Canvas c) {
+    final TapTargetRenderer renderer = frame.target.renderer;
+    (renderer != null ? renderer : TapTargetRenderer.DEFAULT).draw(frame, c);
+  }
+}
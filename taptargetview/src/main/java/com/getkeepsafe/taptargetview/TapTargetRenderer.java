@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.graphics.Canvas;
+
+/**
+ * Draws the frames of a {@link TapTargetView} or of the targets of a {@link TapTargetOverlay}.
+ * <p>
+ * A renderer is handed the {@link PromptFrame} of a prompt every frame and draws its current
+ * animation state. Renderers are shared between views, and so should not hold on to any per-view
+ * state.
+ *
+ * @see TapTarget#renderer(TapTargetRenderer)
+ */
+public interface TapTargetRenderer {
+  /** The default renderer, which draws shadows, the target pulse, the text and the target icon **/
+  TapTargetRenderer DEFAULT = new CanvasTapTargetRenderer();
+
+  /**
+   * A cheaper renderer that skips the jittered shadow and the target pulse, suited for low-end
+   * devices
+   */
+  TapTargetRenderer FLAT = new FlatTapTargetRenderer();
+
+  /**
+   * Draws the current state of a prompt onto the canvas. The canvas is already clipped to the
+   * view's boundaries and dimmed. This is called on the render thread if the target is rendered
+   * off the main thread, see {@link TapTarget#renderOffMainThread(boolean)}.
+   */
+  void draw(PromptFrame frame, Canvas canvas);
+}
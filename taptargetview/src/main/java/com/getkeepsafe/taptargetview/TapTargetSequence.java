@@ -16,26 +16,55 @@
 package com.getkeepsafe.taptargetview;
 
 import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.NoSuchElementException;
 import java.util.Queue;
 
 /**
  * Displays a sequence of {@link TapTargetView}s.
  * <p>
- * Internally, a FIFO queue is held to dictate which {@link TapTarget} will be shown.
+ * Internally, a FIFO queue of target sources is held to dictate which {@link TapTarget} will be
+ * shown. Targets are taken from them one at a time, so that sources backed by an {@link Iterator}
+ * only create each target once the sequence gets to it.
  */
 public class TapTargetSequence {
+  static final long DEFAULT_RESOLVE_TIMEOUT = 3000;
+
   private final Activity activity;
-  private final Queue<TapTarget> targets;
+  private final Queue<Iterator<? extends TapTarget>> sources;
+  private final Handler handler = new Handler(Looper.getMainLooper());
   private boolean started;
+  private boolean canceled;
+  @Nullable
+  private TapTargetView currentView;
+  @Nullable
+  private PendingTarget pendingTarget;
 
   Listener listener;
   boolean considerOuterCircleCanceled;
   boolean continueOnCancel;
+  long resolveTimeout = DEFAULT_RESOLVE_TIMEOUT;
+  boolean skipUnresolved = true;
+  @Nullable
+  TapTargetStore store;
+  int sequenceId = -1;
+
+  private final Runnable startRunnable = new Runnable() {
+    @Override
+    public void run() {
+      start();
+    }
+  };
 
   public interface Listener {
     /** Called when there are no more tap targets to display */
@@ -52,7 +81,9 @@ public class TapTargetSequence {
 
     /**
      * Called when the user taps outside of the current target, the target is cancelable, and
-     * {@link #continueOnCancel(boolean)} is not set.
+     * {@link #continueOnCancel(boolean)} is not set. Also called with the placeholder of a
+     * {@link TapTarget#lazy lazy target} that couldn't be created in time if
+     * {@link #skipUnresolved(boolean)} is not set.
      * @param lastTarget The last displayed target
      */
     void onSequenceCanceled(TapTarget lastTarget);
@@ -61,24 +92,35 @@ public class TapTargetSequence {
   public TapTargetSequence(Activity activity) {
     if (activity == null) throw new IllegalArgumentException("Activity is null");
     this.activity = activity;
-    this.targets = new LinkedList<>();
+    this.sources = new LinkedList<>();
   }
 
   /** Adds the given targets, in order, to the pending queue of {@link TapTarget}s */
   public TapTargetSequence targets(List<TapTarget> targets) {
-    this.targets.addAll(targets);
+    this.sources.add(new ArrayList<>(targets).iterator());
     return this;
   }
 
   /** Adds the given targets, in order, to the pending queue of {@link TapTarget}s */
   public TapTargetSequence targets(TapTarget... targets) {
-    Collections.addAll(this.targets, targets);
+    this.sources.add(Arrays.asList(targets.clone()).iterator());
+    return this;
+  }
+
+  /**
+   * Adds the targets of the given iterator, in order, to the pending queue of {@link TapTarget}s.
+   * The iterator is only advanced when the sequence moves on to its next target, so long or
+   * generated tours only ever hold the current target in memory
+   */
+  public TapTargetSequence targets(Iterator<? extends TapTarget> targets) {
+    if (targets == null) throw new IllegalArgumentException("Given null iterator");
+    this.sources.add(targets);
     return this;
   }
 
   /** Adds the given target to the pending queue of {@link TapTarget}s */
   public TapTargetSequence target(TapTarget target) {
-    this.targets.add(target);
+    this.sources.add(Collections.singletonList(target).iterator());
     return this;
   }
 
@@ -94,15 +136,66 @@ public class TapTargetSequence {
     return this;
   }
 
+  /**
+   * Specify how long to wait for a {@link TapTarget#lazy lazy target} to become available once it
+   * is reached. Defaults to 3 seconds
+   */
+  public TapTargetSequence resolveTimeout(long millis) {
+    if (millis < 0) throw new IllegalArgumentException("Given negative timeout");
+    this.resolveTimeout = millis;
+    return this;
+  }
+
+  /**
+   * Whether to move on to the next target when a {@link TapTarget#lazy lazy target} couldn't be
+   * created in time, or to cancel the sequence. Defaults to moving on
+   */
+  public TapTargetSequence skipUnresolved(boolean status) {
+    this.skipUnresolved = status;
+    return this;
+  }
+
+  /**
+   * Specify a store to record shown and clicked targets in. Targets it has seen before are
+   * skipped, and the sequence only starts once the store has been loaded
+   */
+  public TapTargetSequence store(TapTargetStore store) {
+    if (store == null) throw new IllegalArgumentException("Given null store");
+    this.store = store;
+    return this;
+  }
+
+  /**
+   * Same as {@link #store(TapTargetStore)}, but also records how many steps this sequence moved
+   * past under the given id, see {@link TapTargetStore#progress(int)}
+   */
+  public TapTargetSequence store(TapTargetStore store, int sequenceId) {
+    if (sequenceId < 0) throw new IllegalArgumentException("Given negative sequence id");
+    this.sequenceId = sequenceId;
+    return store(store);
+  }
+
   /** Specify the listener for this sequence **/
   public TapTargetSequence listener(Listener listener) {
     this.listener = listener;
     return this;
   }
 
-  /** Immediately starts the sequence and displays the first target from the queue **/
+  /**
+   * Immediately starts the sequence and displays the first target from the queue, or does so as
+   * soon as its {@link #store(TapTargetStore) store} is loaded
+   */
   public void start() {
-    if (targets.isEmpty() || started) {
+    if (started || canceled) {
+      return;
+    }
+
+    if (store != null && !store.isReady()) {
+      store.whenReady(startRunnable);
+      return;
+    }
+
+    if (!hasNextTarget()) {
       return;
     }
 
@@ -110,24 +203,183 @@ public class TapTargetSequence {
     showNext();
   }
 
+  /**
+   * Stops the sequence, dismissing the target currently shown and no longer waiting for a
+   * {@link TapTarget#lazy lazy target} to become available. The listener is not notified and the
+   * sequence cannot be started again
+   */
+  public void cancel() {
+    if (canceled) {
+      return;
+    }
+
+    canceled = true;
+    if (pendingTarget != null) {
+      pendingTarget.stop();
+    }
+    if (currentView != null) {
+      currentView.dismiss(false);
+      currentView = null;
+    }
+  }
+
+  /** Returns whether any source still has a target, dropping the ones that ran out **/
+  boolean hasNextTarget() {
+    while (!sources.isEmpty()) {
+      if (sources.peek().hasNext()) {
+        return true;
+      }
+      sources.remove();
+    }
+    return false;
+  }
+
   void showNext() {
-    try {
-      TapTargetView.showFor(activity, targets.remove(), tapTargetListener);
-    } catch (NoSuchElementException e) {
-      // No more targets
-      if (listener != null) {
-        listener.onSequenceFinish();
+    if (canceled) {
+      return;
+    }
+
+    while (hasNextTarget()) {
+      TapTarget next = sources.peek().next();
+
+      if (next instanceof LazyTapTarget) {
+        final TapTarget resolved = ((LazyTapTarget) next).resolve();
+        if (resolved == null) {
+          pendingTarget = new PendingTarget((LazyTapTarget) next);
+          pendingTarget.start();
+          return;
+        }
+        next = resolved;
+      }
+
+      if (!wasSeen(next)) {
+        show(next);
+        return;
+      }
+    }
+
+    // No more targets
+    if (listener != null) {
+      listener.onSequenceFinish();
+    }
+  }
+
+  /** Shows a lazy target that has just been created, unless it was seen before **/
+  void showResolved(TapTarget target) {
+    if (wasSeen(target)) {
+      showNext();
+    } else {
+      show(target);
+    }
+  }
+
+  boolean wasSeen(TapTarget target) {
+    return store != null && store.isSeen(target.id);
+  }
+
+  void show(TapTarget target) {
+    if (store != null) {
+      store.markSeen(target.id);
+    }
+    currentView = TapTargetView.showFor(activity, target, tapTargetListener);
+  }
+
+  void onStep(TapTarget target, boolean targetClicked) {
+    if (store != null) {
+      if (targetClicked) {
+        store.markCompleted(target.id);
+      }
+      if (sequenceId >= 0) {
+        store.setProgress(sequenceId, store.progress(sequenceId) + 1);
+      }
+    }
+
+    if (listener != null) {
+      listener.onSequenceStep(target, targetClicked);
+    }
+  }
+
+  void onUnresolved(LazyTapTarget target) {
+    if (skipUnresolved) {
+      showNext();
+    } else if (listener != null) {
+      listener.onSequenceCanceled(target);
+    }
+  }
+
+  /**
+   * Waits for a lazy target to become available, trying again after every layout of the window as
+   * that is when the views it looks for get added. Gives up without notifying anyone once the
+   * window goes away, so that neither the timeout nor the layout listener outlive the activity
+   */
+  private class PendingTarget implements ViewTreeObserver.OnGlobalLayoutListener, Runnable,
+      View.OnAttachStateChangeListener {
+    final LazyTapTarget target;
+    final View decor;
+
+    PendingTarget(LazyTapTarget target) {
+      this.target = target;
+      this.decor = activity.getWindow().getDecorView();
+    }
+
+    void start() {
+      decor.getViewTreeObserver().addOnGlobalLayoutListener(this);
+      decor.addOnAttachStateChangeListener(this);
+      handler.postDelayed(this, resolveTimeout);
+    }
+
+    void stop() {
+      ViewUtil.removeOnGlobalLayoutListener(decor.getViewTreeObserver(), this);
+      decor.removeOnAttachStateChangeListener(this);
+      handler.removeCallbacks(this);
+      if (pendingTarget == this) {
+        pendingTarget = null;
+      }
+    }
+
+    @Override
+    public void onViewAttachedToWindow(View v) {
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(View v) {
+      stop();
+    }
+
+    @Override
+    public void onGlobalLayout() {
+      final TapTarget resolved = target.resolve();
+      if (resolved != null) {
+        stop();
+        showResolved(resolved);
+      }
+    }
+
+    @Override
+    public void run() {
+      // Timed out, give it one last chance in case it became available without a layout
+      final TapTarget resolved = target.resolve();
+      stop();
+      if (resolved != null) {
+        showResolved(resolved);
+      } else {
+        onUnresolved(target);
       }
     }
   }
 
   private final TapTargetView.Listener tapTargetListener = new TapTargetView.Listener() {
+    @Override
+    public void onTargetDismissed(TapTargetView view, boolean userInitiated) {
+      if (currentView == view) {
+        currentView = null;
+      }
+    }
+
     @Override
     public void onTargetClick(TapTargetView view) {
       super.onTargetClick(view);
-      if (listener != null) {
-        listener.onSequenceStep(view.target, true);
-      }
+      onStep(view.target, true);
       showNext();
     }
 
@@ -142,9 +394,7 @@ public class TapTargetSequence {
     public void onTargetCancel(TapTargetView view) {
       super.onTargetCancel(view);
       if (continueOnCancel) {
-        if (listener != null) {
-          listener.onSequenceStep(view.target, false);
-        }
+        onStep(view.target, false);
         showNext();
       } else {
         if (listener != null) {
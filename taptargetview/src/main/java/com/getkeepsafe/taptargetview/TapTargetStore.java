@@ -0,0 +1,441 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.Log;
+import android.util.SparseIntArray;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which targets have been seen or completed, and how far each sequence got, across app
+ * launches. Give it to {@link TapTargetSequence#store(TapTargetStore)} to skip targets that were
+ * already shown. Targets are identified by their {@link TapTarget#id(int)}, so only those with a
+ * non-negative id are tracked.
+ * <p>
+ * Everything is kept in memory, so lookups never touch the disk. The backing file is loaded in the
+ * background when the store is created, see {@link #whenReady(Runnable)}. Changes are appended to
+ * it as fixed-size records, batched and written in the background too. Use a single instance per
+ * file, usually kept for the life of the process, and {@link #close()} any that are let go sooner.
+ */
+public class TapTargetStore {
+  static final String FILE_NAME = "taptargetview.store";
+
+  // Each record is a type byte followed by an int key and an int value
+  static final int RECORD_SIZE = 9;
+  static final byte RECORD_CLEAR = 0;
+  static final byte RECORD_SEEN = 1;
+  static final byte RECORD_COMPLETED = 2;
+  static final byte RECORD_PROGRESS = 3;
+
+  // How long changes are collected before they're written together
+  static final long FLUSH_DELAY = 100;
+
+  private static final String TAG = "TapTargetStore";
+
+  @Nullable
+  private final Context context;
+  @Nullable
+  private File file;
+
+  private final ScheduledExecutorService executor;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+  // Guards everything below
+  private final Object lock = new Object();
+  private final IdSet seen = new IdSet();
+  private final IdSet completed = new IdSet();
+  private final SparseIntArray progress = new SparseIntArray();
+  private ByteArrayOutputStream pendingRecords = new ByteArrayOutputStream();
+  private boolean flushScheduled;
+  private boolean ready;
+  private boolean clearedBeforeLoad;
+  private boolean closed;
+  private final ArrayList<Runnable> readyCallbacks = new ArrayList<>();
+
+  private final Runnable loadRunnable = new Runnable() {
+    @Override
+    public void run() {
+      load();
+    }
+  };
+
+  private final Runnable flushRunnable = new Runnable() {
+    @Override
+    public void run() {
+      flush();
+    }
+  };
+
+  /** Creates a store backed by a file in the app's private files directory **/
+  public TapTargetStore(Context context) {
+    if (context == null) throw new IllegalArgumentException("Context is null");
+    this.context = context.getApplicationContext();
+    this.executor = createExecutor();
+    executor.execute(loadRunnable);
+  }
+
+  /** Creates a store backed by the given file **/
+  public TapTargetStore(File file) {
+    this(file, createExecutor());
+  }
+
+  /** Creates a store backed by the given file that does its work on the given executor **/
+  TapTargetStore(File file, ScheduledExecutorService executor) {
+    if (file == null) throw new IllegalArgumentException("File is null");
+    this.context = null;
+    this.file = file;
+    this.executor = executor;
+    executor.execute(loadRunnable);
+  }
+
+  private static ScheduledExecutorService createExecutor() {
+    return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable runnable) {
+        final Thread thread = new Thread(runnable, TAG);
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /** Returns whether the stored state has been loaded. Until then only changes made since are known **/
+  public boolean isReady() {
+    synchronized (lock) {
+      return ready;
+    }
+  }
+
+  /** Runs the given runnable on the main thread once the stored state has been loaded **/
+  public void whenReady(Runnable runnable) {
+    synchronized (lock) {
+      if (!ready) {
+        readyCallbacks.add(runnable);
+        return;
+      }
+    }
+    mainHandler.post(runnable);
+  }
+
+  /** Returns whether the target with the given id has been shown before **/
+  public boolean isSeen(int targetId) {
+    if (targetId < 0) return false;
+    synchronized (lock) {
+      return seen.contains(targetId);
+    }
+  }
+
+  /** Returns whether the target with the given id has been clicked before **/
+  public boolean isCompleted(int targetId) {
+    if (targetId < 0) return false;
+    synchronized (lock) {
+      return completed.contains(targetId);
+    }
+  }
+
+  /** Returns the number of steps the sequence with the given id has moved past, or 0 **/
+  public int progress(int sequenceId) {
+    synchronized (lock) {
+      return progress.get(sequenceId);
+    }
+  }
+
+  public void markSeen(int targetId) {
+    if (targetId < 0) return;
+    synchronized (lock) {
+      if (seen.add(targetId)) {
+        append(RECORD_SEEN, targetId, 0);
+      }
+    }
+  }
+
+  public void markCompleted(int targetId) {
+    if (targetId < 0) return;
+    synchronized (lock) {
+      if (completed.add(targetId)) {
+        seen.add(targetId);
+        append(RECORD_COMPLETED, targetId, 0);
+      }
+    }
+  }
+
+  public void setProgress(int sequenceId, int steps) {
+    if (steps < 0) throw new IllegalArgumentException("Given negative progress");
+    synchronized (lock) {
+      if (progress.get(sequenceId) != steps) {
+        progress.put(sequenceId, steps);
+        append(RECORD_PROGRESS, sequenceId, steps);
+      }
+    }
+  }
+
+  /** Forgets everything, so that all targets will be shown again **/
+  public void clear() {
+    synchronized (lock) {
+      seen.clear();
+      completed.clear();
+      progress.clear();
+      if (!ready) {
+        clearedBeforeLoad = true;
+      }
+      append(RECORD_CLEAR, 0, 0);
+    }
+  }
+
+  /**
+   * Writes the remaining changes and stops the background thread once done. The store cannot be
+   * changed afterwards
+   */
+  public void close() {
+    synchronized (lock) {
+      if (closed) return;
+      closed = true;
+    }
+    // Tasks already queued, including a scheduled flush, still run
+    executor.shutdown();
+  }
+
+  /** Queues a record to be written with the next batch. Must hold the lock **/
+  private void append(byte type, int key, int value) {
+    if (closed) throw new IllegalStateException("Store is closed");
+
+    pendingRecords.write(type);
+    writeInt(pendingRecords, key);
+    writeInt(pendingRecords, value);
+
+    if (!flushScheduled) {
+      flushScheduled = true;
+      executor.schedule(flushRunnable, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int value) {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private static int readInt(byte[] data, int offset) {
+    return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16
+        | (data[offset + 2] & 0xFF) << 8 | (data[offset + 3] & 0xFF);
+  }
+
+  /** Runs on the executor **/
+  void load() {
+    if (file == null && context != null) {
+      file = new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    final IdSet loadedSeen = new IdSet();
+    final IdSet loadedCompleted = new IdSet();
+    final SparseIntArray loadedProgress = new SparseIntArray();
+    int records = 0;
+
+    final byte[] data = readFile();
+    // A trailing partial record is left over from an interrupted write and ignored
+    for (int offset = 0; offset + RECORD_SIZE <= data.length; offset += RECORD_SIZE) {
+      final int key = readInt(data, offset + 1);
+      final int value = readInt(data, offset + 5);
+      final byte type = key < 0 && data[offset] != RECORD_PROGRESS ? -1 : data[offset];
+      switch (type) {
+        case RECORD_CLEAR:
+          loadedSeen.clear();
+          loadedCompleted.clear();
+          loadedProgress.clear();
+          break;
+        case RECORD_SEEN:
+          loadedSeen.add(key);
+          break;
+        case RECORD_COMPLETED:
+          loadedSeen.add(key);
+          loadedCompleted.add(key);
+          break;
+        case RECORD_PROGRESS:
+          loadedProgress.put(key, value);
+          break;
+        default:
+          // Unknown or corrupt record, e.g. written by a newer version
+          break;
+      }
+      records++;
+    }
+
+    final ArrayList<Runnable> callbacks;
+    final int liveRecords;
+    synchronized (lock) {
+      // A clear made while loading wipes everything on disk, but not the changes made after it
+      if (clearedBeforeLoad) {
+        loadedSeen.clear();
+        loadedCompleted.clear();
+        loadedProgress.clear();
+      }
+
+      // Changes made while loading are newer than anything on disk
+      loadedSeen.addAll(seen);
+      loadedCompleted.addAll(completed);
+      for (int i = 0; i < progress.size(); ++i) {
+        loadedProgress.put(progress.keyAt(i), progress.valueAt(i));
+      }
+
+      seen.clear();
+      seen.addAll(loadedSeen);
+      completed.clear();
+      completed.addAll(loadedCompleted);
+      progress.clear();
+      for (int i = 0; i < loadedProgress.size(); ++i) {
+        progress.put(loadedProgress.keyAt(i), loadedProgress.valueAt(i));
+      }
+
+      liveRecords = seen.size() + progress.size();
+      ready = true;
+      callbacks = new ArrayList<>(readyCallbacks);
+      readyCallbacks.clear();
+    }
+
+    for (Runnable callback : callbacks) {
+      mainHandler.post(callback);
+    }
+
+    // Superseded records pile up over time, so rewrite the file once they dominate it. A partial
+    // record would also misalign everything appended after it, so rewrite the file without it
+    if (records > 2 * liveRecords + 64 || data.length % RECORD_SIZE != 0) {
+      compact();
+    }
+  }
+
+  private byte[] readFile() {
+    if (file == null || !file.exists()) {
+      return new byte[0];
+    }
+
+    InputStream in = null;
+    try {
+      in = new FileInputStream(file);
+      final byte[] data = new byte[(int) file.length()];
+      int read = 0;
+      while (read < data.length) {
+        final int count = in.read(data, read, data.length - read);
+        if (count < 0) break;
+        read += count;
+      }
+      return data;
+    } catch (IOException e) {
+      Log.w(TAG, "Could not read " + file, e);
+      return new byte[0];
+    } finally {
+      close(in);
+    }
+  }
+
+  /** Runs on the executor **/
+  void flush() {
+    final byte[] records;
+    synchronized (lock) {
+      flushScheduled = false;
+      records = pendingRecords.toByteArray();
+      pendingRecords.reset();
+    }
+
+    appendToFile(records);
+  }
+
+  private void appendToFile(byte[] records) {
+    if (records.length == 0 || file == null) {
+      return;
+    }
+
+    OutputStream out = null;
+    try {
+      out = new FileOutputStream(file, true);
+      out.write(records);
+    } catch (IOException e) {
+      Log.w(TAG, "Could not write " + file, e);
+    } finally {
+      close(out);
+    }
+  }
+
+  /** Replaces the file with one holding a single record per live entry. Runs on the executor **/
+  void compact() {
+    final ByteArrayOutputStream records = new ByteArrayOutputStream();
+    final byte[] pending;
+    synchronized (lock) {
+      for (int id = seen.nextId(0); id >= 0;
+          id = id < Integer.MAX_VALUE ? seen.nextId(id + 1) : -1) {
+        records.write(completed.contains(id) ? RECORD_COMPLETED : RECORD_SEEN);
+        writeInt(records, id);
+        writeInt(records, 0);
+      }
+      for (int i = 0; i < progress.size(); ++i) {
+        records.write(RECORD_PROGRESS);
+        writeInt(records, progress.keyAt(i));
+        writeInt(records, progress.valueAt(i));
+      }
+      // Everything pending is part of the snapshot
+      pending = pendingRecords.toByteArray();
+      pendingRecords.reset();
+    }
+
+    if (file == null) {
+      return;
+    }
+
+    final File temp = new File(file.getPath() + ".tmp");
+    OutputStream out = null;
+    try {
+      out = new FileOutputStream(temp);
+      out.write(records.toByteArray());
+      out.close();
+      out = null;
+      if (temp.renameTo(file)) {
+        return;
+      }
+      Log.w(TAG, "Could not replace " + file);
+    } catch (IOException e) {
+      Log.w(TAG, "Could not compact " + file, e);
+    } finally {
+      close(out);
+    }
+
+    // The old file is still in place, so the changes taken for the snapshot still need writing
+    appendToFile(pending);
+  }
+
+  private static void close(@Nullable Closeable closeable) {
+    if (closeable == null) return;
+    try {
+      closeable.close();
+    } catch (IOException ignored) {
+    }
+  }
+}
@@ -0,0 +1,346 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.support.annotation.ColorInt;
+import android.support.annotation.ColorRes;
+import android.support.annotation.DimenRes;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.text.TextPaint;
+
+/**
+ * The colors, text sizes and typefaces of a prompt, resolved against a {@link Context} once so
+ * that they can be shared by any number of targets via {@link TapTarget#style(TapTargetStyle)}.
+ * <p>
+ * Instances are immutable and hold the fully configured paints, which each
+ * {@link TapTargetView} copies instead of resolving resources and theme attributes itself.
+ * Create one with a {@link Builder}, and build it again after a configuration change.
+ */
+public final class TapTargetStyle {
+  final boolean isDark;
+  final int dimColor;
+
+  final TextPaint titlePaint;
+  final TextPaint descriptionPaint;
+  final TextPaint confirmLabelPaint;
+  final Paint outerCirclePaint;
+  final Paint targetCirclePaint;
+
+  TapTargetStyle(Context context, Builder builder) {
+    isDark = UiUtil.themeIntAttr(context, "isLightTheme") == 0;
+
+    final Integer dim = builder.color(context, builder.dimColor, builder.dimColorRes);
+    dimColor = dim != null ? UiUtil.setAlpha(dim, 0.3f) : -1;
+
+    outerCirclePaint = PaintTemplates.fill();
+    final Integer outerCircleColor =
+        builder.color(context, builder.outerCircleColor, builder.outerCircleColorRes);
+    if (outerCircleColor != null) {
+      outerCirclePaint.setColor(outerCircleColor);
+    } else if (context.getTheme() != null) {
+      outerCirclePaint.setColor(UiUtil.themeIntAttr(context, "colorPrimary"));
+    } else {
+      outerCirclePaint.setColor(Color.WHITE);
+    }
+
+    targetCirclePaint = PaintTemplates.fill();
+    final Integer targetCircleColor =
+        builder.color(context, builder.targetCircleColor, builder.targetCircleColorRes);
+    targetCirclePaint.setColor(targetCircleColor != null
+        ? targetCircleColor : isDark ? Color.BLACK : Color.WHITE);
+
+    titlePaint = PaintTemplates.title();
+    titlePaint.setTextSize(builder.size(context, builder.titleTextSize, builder.titleTextDimen));
+    final Integer titleTextColor =
+        builder.color(context, builder.titleTextColor, builder.titleTextColorRes);
+    titlePaint.setColor(titleTextColor != null
+        ? titleTextColor : isDark ? Color.BLACK : Color.WHITE);
+
+    descriptionPaint = PaintTemplates.body();
+    descriptionPaint.setTextSize(
+        builder.size(context, builder.descriptionTextSize, builder.descriptionTextDimen));
+    final Integer descriptionTextColor =
+        builder.color(context, builder.descriptionTextColor, builder.descriptionTextColorRes);
+    descriptionPaint.setColor(descriptionTextColor != null
+        ? descriptionTextColor : titlePaint.getColor());
+
+    confirmLabelPaint = PaintTemplates.body();
+    confirmLabelPaint.setTextSize(
+        builder.size(context, builder.confirmLabelTextSize, builder.confirmLabelTextDimen));
+    final Integer confirmLabelTextColor =
+        builder.color(context, builder.confirmLabelTextColor, builder.confirmLabelTextColorRes);
+    confirmLabelPaint.setColor(confirmLabelTextColor != null
+        ? confirmLabelTextColor : titlePaint.getColor());
+
+    if (builder.titleTypeface != null) {
+      titlePaint.setTypeface(builder.titleTypeface);
+    }
+
+    if (builder.descriptionTypeface != null) {
+      descriptionPaint.setTypeface(builder.descriptionTypeface);
+    }
+
+    if (builder.confirmLabelTypeface != null) {
+      confirmLabelPaint.setTypeface(builder.confirmLabelTypeface);
+    }
+  }
+
+  /**
+   * Collects the options of a {@link TapTargetStyle}. Unset colors fall back to the same theme
+   * based defaults as a {@link TapTarget} without a style
+   */
+  public static class Builder {
+    @ColorRes
+    int outerCircleColorRes = -1;
+    @ColorRes
+    int targetCircleColorRes = -1;
+    @ColorRes
+    int dimColorRes = -1;
+    @ColorRes
+    int titleTextColorRes = -1;
+    @ColorRes
+    int descriptionTextColorRes = -1;
+    @ColorRes
+    int confirmLabelTextColorRes = -1;
+
+    Integer outerCircleColor = null;
+    Integer targetCircleColor = null;
+    Integer dimColor = null;
+    Integer titleTextColor = null;
+    Integer descriptionTextColor = null;
+    Integer confirmLabelTextColor = null;
+
+    @DimenRes
+    int titleTextDimen = -1;
+    @DimenRes
+    int descriptionTextDimen = -1;
+    @DimenRes
+    int confirmLabelTextDimen = -1;
+
+    int titleTextSize = 20;
+    int descriptionTextSize = 18;
+    int confirmLabelTextSize = 18;
+
+    Typeface titleTypeface;
+    Typeface descriptionTypeface;
+    Typeface confirmLabelTypeface;
+
+    /** Specify the color resource for the outer circle **/
+    public Builder outerCircleColor(@ColorRes int color) {
+      this.outerCircleColorRes = color;
+      return this;
+    }
+
+    /** Specify the color value for the outer circle **/
+    public Builder outerCircleColorInt(@ColorInt int color) {
+      this.outerCircleColor = color;
+      return this;
+    }
+
+    /** Specify the color resource for the target circle **/
+    public Builder targetCircleColor(@ColorRes int color) {
+      this.targetCircleColorRes = color;
+      return this;
+    }
+
+    /** Specify the color value for the target circle **/
+    public Builder targetCircleColorInt(@ColorInt int color) {
+      this.targetCircleColor = color;
+      return this;
+    }
+
+    /** Specify the color resource for all text **/
+    public Builder textColor(@ColorRes int color) {
+      this.titleTextColorRes = color;
+      this.descriptionTextColorRes = color;
+      this.confirmLabelTextColorRes = color;
+      return this;
+    }
+
+    /** Specify the color value for all text **/
+    public Builder textColorInt(@ColorInt int color) {
+      this.titleTextColor = color;
+      this.descriptionTextColor = color;
+      this.confirmLabelTextColor = color;
+      return this;
+    }
+
+    /** Specify the color resource for the title text **/
+    public Builder titleTextColor(@ColorRes int color) {
+      this.titleTextColorRes = color;
+      return this;
+    }
+
+    /** Specify the color value for the title text **/
+    public Builder titleTextColorInt(@ColorInt int color) {
+      this.titleTextColor = color;
+      return this;
+    }
+
+    /** Specify the color resource for the description text **/
+    public Builder descriptionTextColor(@ColorRes int color) {
+      this.descriptionTextColorRes = color;
+      return this;
+    }
+
+    /** Specify the color value for the description text **/
+    public Builder descriptionTextColorInt(@ColorInt int color) {
+      this.descriptionTextColor = color;
+      return this;
+    }
+
+    /** Specify the color resource for the confirm text **/
+    public Builder confirmTextColor(@ColorRes int color) {
+      this.confirmLabelTextColorRes = color;
+      return this;
+    }
+
+    /** Specify the color value for the confirm text **/
+    public Builder confirmTextColorInt(@ColorInt int color) {
+      this.confirmLabelTextColor = color;
+      return this;
+    }
+
+    /**
+     * Specify the color resource to use as a dim effect
+     * <p>
+     * <b>Note:</b> The given color will have its opacity modified to 30% automatically
+     */
+    public Builder dimColor(@ColorRes int color) {
+      this.dimColorRes = color;
+      return this;
+    }
+
+    /**
+     * Specify the color value to use as a dim effect
+     * <p>
+     * <b>Note:</b> The given color will have its opacity modified to 30% automatically
+     */
+    public Builder dimColorInt(@ColorInt int color) {
+      this.dimColor = color;
+      return this;
+    }
+
+    /** Specify the typeface for all text **/
+    public Builder textTypeface(Typeface typeface) {
+      if (typeface == null) throw new IllegalArgumentException("Cannot use a null typeface");
+      titleTypeface = typeface;
+      descriptionTypeface = typeface;
+      confirmLabelTypeface = typeface;
+      return this;
+    }
+
+    /** Specify the typeface for title text **/
+    public Builder titleTypeface(Typeface titleTypeface) {
+      if (titleTypeface == null) throw new IllegalArgumentException("Cannot use a null typeface");
+      this.titleTypeface = titleTypeface;
+      return this;
+    }
+
+    /** Specify the typeface for description text **/
+    public Builder descriptionTypeface(Typeface descriptionTypeface) {
+      if (descriptionTypeface == null) throw new IllegalArgumentException("Cannot use a null typeface");
+      this.descriptionTypeface = descriptionTypeface;
+      return this;
+    }
+
+    /** Specify the typeface for the confirm text **/
+    public Builder confirmTextTypeface(Typeface confirmTextTypeface) {
+      if (confirmTextTypeface == null) throw new IllegalArgumentException("Cannot use a null typeface");
+      this.confirmLabelTypeface = confirmTextTypeface;
+      return this;
+    }
+
+    /** Specify the text size for the title in SP **/
+    public Builder titleTextSize(int sp) {
+      if (sp < 0) throw new IllegalArgumentException("Given negative text size");
+      this.titleTextSize = sp;
+      return this;
+    }
+
+    /** Specify the text size for the description in SP **/
+    public Builder descriptionTextSize(int sp) {
+      if (sp < 0) throw new IllegalArgumentException("Given negative text size");
+      this.descriptionTextSize = sp;
+      return this;
+    }
+
+    /** Specify the text size for the confirm label in SP **/
+    public Builder confirmTextSize(int sp) {
+      if (sp < 0) throw new IllegalArgumentException("Given negative text size");
+      this.confirmLabelTextSize = sp;
+      return this;
+    }
+
+    /**
+     * Specify the text size for the title via a dimen resource
+     * <p>
+     * Note: If set, this value will take precedence over the specified sp size
+     */
+    public Builder titleTextDimen(@DimenRes int dimen) {
+      this.titleTextDimen = dimen;
+      return this;
+    }
+
+    /**
+     * Specify the text size for the description via a dimen resource
+     * <p>
+     * Note: If set, this value will take precedence over the specified sp size
+     */
+    public Builder descriptionTextDimen(@DimenRes int dimen) {
+      this.descriptionTextDimen = dimen;
+      return this;
+    }
+
+    /**
+     * Specify the text size for the confirm label via a dimen resource
+     * <p>
+     * Note: If set, this value will take precedence over the specified sp size
+     */
+    public Builder confirmLabelTextDimen(@DimenRes int dimen) {
+      this.confirmLabelTextDimen = dimen;
+      return this;
+    }
+
+    /** Resolves the options against the given context, usually the activity showing the prompts **/
+    public TapTargetStyle build(Context context) {
+      if (context == null) throw new IllegalArgumentException("Context is null");
+      return new TapTargetStyle(context, this);
+    }
+
+    @Nullable
+    Integer color(Context context, @Nullable Integer value, @ColorRes int resource) {
+      if (resource != -1) {
+        return ContextCompat.getColor(context, resource);
+      }
+
+      return value;
+    }
+
+    int size(Context context, int size, @DimenRes int dimen) {
+      if (dimen != -1) {
+        return context.getResources().getDimensionPixelSize(dimen);
+      }
+
+      return UiUtil.sp(context, size);
+    }
+  }
+}
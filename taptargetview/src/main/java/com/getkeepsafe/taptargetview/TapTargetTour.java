@@ -0,0 +1,346 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.XmlResourceParser;
+import android.os.Build;
+import android.support.annotation.Nullable;
+import android.support.annotation.XmlRes;
+import android.support.v7.widget.Toolbar;
+import android.view.View;
+
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A tour defined in an XML resource, turned into a {@link TapTargetSequence} of lazy targets.
+ * <p>
+ * The file holds any number of {@code <tour name="...">} elements, each a list of
+ * {@code <target>} elements. A target points at a view with {@code view="@id/..."}, or at a part
+ * of a toolbar with {@code toolbar="@id/..."} and either {@code role="navigation"},
+ * {@code role="overflow"} or {@code menuItem="@id/..."}. It needs a {@code title}, and can
+ * have a {@code description}, a {@code confirmLabel}, an integer {@code id} and
+ * {@code cancelable="false"}. Texts are literal unless they are {@code @string/...} references,
+ * so any other value starting with {@code @} is shown as it is.
+ * <p>
+ * Parsing stops at the end of the requested tour, and skips the others without reading their
+ * targets. Views are only looked up, and texts only loaded, once a sequence reaches the target.
+ */
+public final class TapTargetTour {
+  static final String ROLE_NAVIGATION = "navigation";
+  static final String ROLE_OVERFLOW = "overflow";
+
+  final String name;
+  final List<Step> steps;
+
+  TapTargetTour(String name, List<Step> steps) {
+    this.name = name;
+    this.steps = steps;
+  }
+
+  /** Reads the tour with the given name from an XML resource **/
+  public static TapTargetTour fromXml(Context context, @XmlRes int xml, String name) {
+    if (context == null) throw new IllegalArgumentException("Context is null");
+
+    final XmlResourceParser parser = context.getResources().getXml(xml);
+    try {
+      return parse(parser, name);
+    } catch (XmlPullParserException | IOException e) {
+      throw new IllegalArgumentException("Invalid tour definition: " + e.getMessage(), e);
+    } finally {
+      parser.close();
+    }
+  }
+
+  /**
+   * Reads the tour with the given name from the parser, which needs no Android resources and can
+   * be used to check tour definitions in plain JVM tests. Throws an
+   * {@link XmlPullParserException} describing the position of the first invalid element
+   */
+  public static TapTargetTour parse(XmlPullParser parser, String name)
+      throws XmlPullParserException, IOException {
+    if (name == null) throw new IllegalArgumentException("Given null tour name");
+
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_DOCUMENT) {
+      if (type != XmlPullParser.START_TAG || !"tour".equals(parser.getName())) {
+        continue;
+      }
+
+      if (name.equals(parser.getAttributeValue(null, "name"))) {
+        return new TapTargetTour(name, readSteps(parser));
+      }
+
+      skip(parser);
+    }
+
+    throw new IllegalArgumentException("No tour named " + name);
+  }
+
+  /** Return the name of this tour **/
+  public String name() {
+    return name;
+  }
+
+  /** Return the number of targets in this tour **/
+  public int size() {
+    return steps.size();
+  }
+
+  /** Returns the targets of this tour, each created once a sequence reaches it **/
+  public Iterator<TapTarget> targets(final Activity activity) {
+    if (activity == null) throw new IllegalArgumentException("Activity is null");
+
+    final Iterator<Step> iterator = steps.iterator();
+    return new Iterator<TapTarget>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      public TapTarget next() {
+        final Step step = iterator.next();
+        return TapTarget.lazy(new TapTarget.Factory() {
+          @Nullable
+          @Override
+          public TapTarget create() {
+            return step.create(activity);
+          }
+        });
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /** Returns a new sequence showing this tour's targets in the given activity **/
+  public TapTargetSequence sequence(Activity activity) {
+    return new TapTargetSequence(activity).targets(targets(activity));
+  }
+
+  static List<Step> readSteps(XmlPullParser parser) throws XmlPullParserException, IOException {
+    final List<Step> steps = new ArrayList<>();
+    final int depth = parser.getDepth();
+
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
+        && (type != XmlPullParser.END_TAG || parser.getDepth() > depth)) {
+      if (type != XmlPullParser.START_TAG) {
+        continue;
+      }
+
+      if (!"target".equals(parser.getName())) {
+        throw new XmlPullParserException("Unexpected element <" + parser.getName() + ">", parser, null);
+      }
+
+      steps.add(new Step(parser));
+      skip(parser);
+    }
+
+    return Collections.unmodifiableList(steps);
+  }
+
+  /** Skips past the end of the element the parser is at **/
+  static void skip(XmlPullParser parser) throws XmlPullParserException, IOException {
+    final int depth = parser.getDepth();
+
+    int type;
+    while ((type = parser.next()) != XmlPullParser.END_DOCUMENT
+        && (type != XmlPullParser.END_TAG || parser.getDepth() > depth)) {
+      // Nothing to read
+    }
+  }
+
+  /** Returns the id a reference attribute points at, resolving names only when needed **/
+  static int resolveId(Context context, String reference) {
+    final String value = reference.substring(1);
+    if (Character.isDigit(value.charAt(0))) {
+      // Compiled resources already hold the id
+      return Integer.parseInt(value);
+    }
+
+    final int slash = value.indexOf('/');
+    final String type = value.substring(value.startsWith("+") ? 1 : 0, slash);
+    final Resources resources = context.getResources();
+    return resources.getIdentifier(value.substring(slash + 1), type, context.getPackageName());
+  }
+
+  static boolean isReference(@Nullable String value) {
+    if (value == null || value.length() < 2 || value.charAt(0) != '@') {
+      return false;
+    }
+
+    if (Character.isDigit(value.charAt(1))) {
+      for (int i = 2; i < value.length(); ++i) {
+        if (!Character.isDigit(value.charAt(i))) return false;
+      }
+      return true;
+    }
+
+    final int slash = value.indexOf('/');
+    return slash > 1 && slash < value.length() - 1;
+  }
+
+  /** Returns whether a text attribute refers to a string resource instead of being the text **/
+  static boolean isTextReference(@Nullable String value) {
+    return isReference(value)
+        && (Character.isDigit(value.charAt(1)) || value.startsWith("@string/"));
+  }
+
+  /** A single target of a tour, as read from its element **/
+  static final class Step {
+    @Nullable
+    final String view;
+    @Nullable
+    final String toolbar;
+    @Nullable
+    final String role;
+    @Nullable
+    final String menuItem;
+    final String title;
+    @Nullable
+    final String description;
+    @Nullable
+    final String confirmLabel;
+    final int id;
+    final boolean cancelable;
+
+    Step(XmlPullParser parser) throws XmlPullParserException {
+      view = reference(parser, "view");
+      toolbar = reference(parser, "toolbar");
+      role = parser.getAttributeValue(null, "role");
+      menuItem = reference(parser, "menuItem");
+      title = parser.getAttributeValue(null, "title");
+      description = parser.getAttributeValue(null, "description");
+      confirmLabel = parser.getAttributeValue(null, "confirmLabel");
+
+      if ((view == null) == (toolbar == null)) {
+        throw new XmlPullParserException("A target needs either a view or a toolbar", parser, null);
+      }
+
+      if (toolbar != null && (role == null) == (menuItem == null)) {
+        throw new XmlPullParserException("A toolbar target needs either a role or a menuItem", parser, null);
+      }
+
+      if (role != null && !ROLE_NAVIGATION.equals(role) && !ROLE_OVERFLOW.equals(role)) {
+        throw new XmlPullParserException("Unknown toolbar role: " + role, parser, null);
+      }
+
+      if (title == null) {
+        throw new XmlPullParserException("A target needs a title", parser, null);
+      }
+
+      final String id = parser.getAttributeValue(null, "id");
+      try {
+        this.id = id != null ? Integer.parseInt(id) : -1;
+      } catch (NumberFormatException e) {
+        throw new XmlPullParserException("Invalid target id: " + id, parser, e);
+      }
+
+      cancelable = !"false".equals(parser.getAttributeValue(null, "cancelable"));
+    }
+
+    @Nullable
+    private static String reference(XmlPullParser parser, String attribute)
+        throws XmlPullParserException {
+      final String value = parser.getAttributeValue(null, attribute);
+      if (value != null && !isReference(value)) {
+        throw new XmlPullParserException("Expected a reference for " + attribute + ": " + value,
+            parser, null);
+      }
+      return value;
+    }
+
+    /** Creates the target, or returns null while its view is not available **/
+    @Nullable
+    TapTarget create(Activity activity) {
+      // Steps are retried until their view shows up, so look for it before resolving any text
+      final View found = activity.findViewById(resolveId(activity, view != null ? view : toolbar));
+      final boolean isPlatformToolbar =
+          Build.VERSION.SDK_INT >= 21 && found instanceof android.widget.Toolbar;
+      if (view != null ? found == null : !(found instanceof Toolbar || isPlatformToolbar)) {
+        return null;
+      }
+
+      final CharSequence title = text(activity, this.title);
+      final CharSequence description = text(activity, this.description);
+      final CharSequence confirmLabel = text(activity, this.confirmLabel);
+
+      final TapTarget target;
+      if (view != null) {
+        target = TapTarget.forView(found, title, description, confirmLabel);
+      } else if (found instanceof Toolbar) {
+        target = forToolbar(activity, (Toolbar) found, title, description, confirmLabel);
+      } else {
+        target = forPlatformToolbar(activity, found, title, description, confirmLabel);
+      }
+
+      return target.id(id).cancelable(cancelable);
+    }
+
+    private TapTarget forToolbar(Context context, Toolbar toolbar, CharSequence title,
+                                 @Nullable CharSequence description,
+                                 @Nullable CharSequence confirmLabel) {
+      if (menuItem != null) {
+        return TapTarget.forToolbarMenuItem(toolbar, resolveId(context, menuItem), title,
+            description, confirmLabel);
+      } else if (ROLE_NAVIGATION.equals(role)) {
+        return TapTarget.forToolbarNavigationIcon(toolbar, title, description, confirmLabel);
+      } else {
+        return TapTarget.forToolbarOverflow(toolbar, title, description, confirmLabel);
+      }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private TapTarget forPlatformToolbar(Context context, View view, CharSequence title,
+                                         @Nullable CharSequence description,
+                                         @Nullable CharSequence confirmLabel) {
+      final android.widget.Toolbar toolbar = (android.widget.Toolbar) view;
+      if (menuItem != null) {
+        return TapTarget.forToolbarMenuItem(toolbar, resolveId(context, menuItem), title,
+            description, confirmLabel);
+      } else if (ROLE_NAVIGATION.equals(role)) {
+        return TapTarget.forToolbarNavigationIcon(toolbar, title, description, confirmLabel);
+      } else {
+        return TapTarget.forToolbarOverflow(toolbar, title, description, confirmLabel);
+      }
+    }
+
+    @Nullable
+    private static CharSequence text(Context context, @Nullable String value) {
+      if (!isTextReference(value)) {
+        return value;
+      }
+      // Compiled references always point at a resource, but a name may not exist
+      final int id = resolveId(context, value);
+      return id != 0 ? context.getText(id) : value;
+    }
+  }
+}
@@ -15,36 +15,27 @@
  */
 package com.getkeepsafe.taptargetview;
 
-import android.animation.ValueAnimator;
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
 import android.annotation.SuppressLint;
 import android.annotation.TargetApi;
 import android.app.Activity;
 import android.app.Dialog;
 import android.content.Context;
-import android.content.res.Resources;
-import android.graphics.Bitmap;
+import android.content.res.Configuration;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Outline;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.PixelFormat;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffColorFilter;
-import android.graphics.PorterDuffXfermode;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.Region;
-import android.graphics.Typeface;
-import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.support.annotation.Nullable;
+import android.support.v4.os.TraceCompat;
 import android.text.DynamicLayout;
 import android.text.Layout;
 import android.text.SpannableStringBuilder;
 import android.text.StaticLayout;
 import android.text.TextPaint;
-import android.util.DisplayMetrics;
 import android.view.Gravity;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
@@ -52,6 +43,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewManager;
 import android.view.ViewOutlineProvider;
+import android.view.ViewAnimationUtils;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import android.view.animation.AccelerateDecelerateInterpolator;
@@ -71,51 +63,23 @@ public class TapTargetView extends View {
   private boolean isDismissed = false;
   private boolean isInteractable = true;
 
-  final int TARGET_PADDING;
-  final int TARGET_RADIUS;
-  final int TARGET_WIDTH;
-  final int TARGET_HEIGHT;
-  final int TARGET_PULSE_RADIUS;
-  final int TEXT_PADDING;
-  final int TEXT_SPACING;
-  final int TEXT_MAX_WIDTH;
-  final int TEXT_POSITIONING_BIAS;
-  final int CIRCLE_PADDING;
-  final int GUTTER_DIM;
-  final int SHADOW_DIM;
-  final int SHADOW_JITTER_DIM;
-
   @Nullable
   final ViewGroup boundingParent;
+  @Nullable
+  final PromptBoundaries boundaries;
   final ViewManager parent;
   final TapTarget target;
-  final Rect targetBounds;
-
-  final TextPaint titlePaint;
-  final TextPaint descriptionPaint;
-  final TextPaint confirmlabelPaint;
-  final Paint outerCirclePaint;
-  final Paint outerCircleShadowPaint;
-  final Paint targetCirclePaint;
-  final Paint targetCirclePulsePaint;
+  final TapTargetStyle style;
+  final PromptFrame frame;
 
-  final boolean pulseEnabled;
+  final TapTargetRenderer renderer;
+  final AnimationClock clock;
+  final float durationScale;
+  final long pulseFrameInterval;
 
-  CharSequence title;
-  @Nullable
-  StaticLayout titleLayout;
-  @Nullable
-  CharSequence description;
-  @Nullable
-  StaticLayout descriptionLayout;
-  @Nullable
-  CharSequence confirmLabel;
-  @Nullable
-  StaticLayout confirmLabelLayout;
   boolean isDark;
-  boolean debug;
-  boolean shouldTintTarget;
-  boolean shouldDrawShadow;
+  // Read while drawing, which happens on the render thread when rendering off the main thread
+  volatile boolean debug;
   boolean cancelable;
   boolean visible;
 
@@ -131,36 +95,67 @@ public class TapTargetView extends View {
 
   // Drawing properties
   Rect drawingBounds;
-  Rect textBounds;
-  RectF targetShapeBounds = new RectF();
-  RectF targetPulseShapeBounds = new RectF();
-
-  Path outerCirclePath;
-  float outerCircleRadius;
-  int calculatedOuterCircleRadius;
-  int[] outerCircleCenter;
-  int outerCircleAlpha;
-
-  float targetCirclePulseRadius;
-  float targetCirclePulseWidth;
-  float targetCirclePulseHeight;
-  int targetCirclePulseAlpha;
-
-  float targetCircleRadius;
-  float targetCircleWidth;
-  float targetCircleHeight;
-  int targetCircleAlpha;
-
-  int textAlpha;
   int dimColor;
 
   float lastTouchX;
   float lastTouchY;
 
+  // Set while the window is hidden or unfocused, on the main thread
+  boolean animationsPaused;
+
+  // The frame, drawing bounds and everything below are only accessed on the animation thread,
+  // which is the render thread when rendering off the main thread and the main thread otherwise
+
+  // Size and boundaries the frame was last placed in, used in place of getWidth and getHeight
+  int layoutWidth;
+  int layoutHeight;
   int topBoundary;
   int bottomBoundary;
 
-  Bitmap tintedTarget;
+  // Pulse throttling related variables
+  boolean pulseStopped;
+  int pulseCyclesCompleted;
+  long lastPulseCycle = -1;
+  long lastPulseFrameTime;
+  long lastInteractionTime;
+  volatile long framesRendered;
+
+  // Follows animationsPaused once the change has been posted to the animation thread
+  boolean animatorsPaused;
+
+  // Set once the view is dismissed, after which nothing is drawn anymore
+  boolean released;
+
+  // Set from the end of the expand animation until the pulse is stopped, even while paused
+  boolean pulsing;
+  @Nullable
+  PulseTicker pulseTicker;
+
+  // Target bounds being applied and the drawing bounds the prompt covered before they were
+  final Rect layoutTargetBounds = new Rect();
+  final Rect previousDrawingBounds = new Rect();
+
+  // Layout inputs read on the main thread and handed to the animation thread. The fields below
+  // pendingTargetBounds are guarded by it. See also TapTarget#trackTarget
+  final Rect pendingTargetBounds = new Rect();
+  int pendingWidth;
+  int pendingHeight;
+  int pendingTopBoundary;
+  int pendingBottomBoundary;
+
+  // Main thread scratch space for reading the target's position
+  final Rect trackedBounds = new Rect();
+  final int[] trackingOffset = new int[2];
+
+  // Circular reveal used in place of the expand and dismiss animations, see
+  // TapTarget#renderThreadAnimations
+  @Nullable
+  Animator revealAnimator;
+
+  // Set when rendering off the main thread, see TapTarget#renderOffMainThread
+  @Nullable
+  SurfaceRenderer surfaceRenderer;
+  final FrameState touchState = new FrameState();
 
   Listener listener;
 
@@ -184,6 +179,42 @@ public class TapTargetView extends View {
     return tapTargetView;
   }
 
+  /**
+   * Pays the one-off costs of showing the first prompt ahead of time, so that it appears sooner.
+   * This loads the library's classes, creates its default typefaces and paints and looks up the theme
+   * attributes it reads. Can be called from any thread, e.g. during startup with the
+   * application context.
+   */
+  public static void warmUp(Context context) {
+    if (context == null) throw new IllegalArgumentException("Context is null");
+
+    TraceCompat.beginSection("TapTargetView.warmUp.classes");
+    // A class literal only loads its class, so initialize them explicitly to run their static
+    // initializers as well. Going through the literals keeps this working once obfuscated
+    final Class<?>[] classes = {TapTarget.class, ViewTapTarget.class, ToolbarTapTarget.class,
+        TapTargetSequence.class, TapTargetStyle.class, PromptFrame.class, FloatAnimator.class,
+        PulseTicker.class, PromptGeometry.class, CanvasTapTargetRenderer.class,
+        StaticLayout.class, DynamicLayout.class};
+    for (final Class<?> cls : classes) {
+      try {
+        Class.forName(cls.getName(), true, cls.getClassLoader());
+      } catch (ClassNotFoundException e) {
+        // Cannot happen, the class was just loaded through its literal
+        throw new IllegalStateException(e);
+      }
+    }
+    TraceCompat.endSection();
+
+    TraceCompat.beginSection("TapTargetView.warmUp.typefaces");
+    PaintTemplates.title();
+    TraceCompat.endSection();
+
+    TraceCompat.beginSection("TapTargetView.warmUp.theme");
+    UiUtil.themeIntAttr(context, "isLightTheme");
+    UiUtil.themeIntAttr(context, "colorPrimary");
+    TraceCompat.endSection();
+  }
+
   public static TapTargetView showFor(Dialog dialog, TapTarget target) {
     return showFor(dialog, target, null);
   }
@@ -241,39 +272,14 @@ public class TapTargetView extends View {
   final FloatValueAnimatorBuilder.UpdateListener expandContractUpdateListener = new FloatValueAnimatorBuilder.UpdateListener() {
     @Override
     public void onUpdate(float lerpTime) {
-      final float newOuterCircleRadius = calculatedOuterCircleRadius * lerpTime;
-      final boolean expanding = newOuterCircleRadius > outerCircleRadius;
+      final boolean expanding = frame.isExpanding(lerpTime);
       if (!expanding) {
         // When contracting we need to invalidate the old drawing bounds. Otherwise
         // you will see artifacts as the circle gets smaller
         calculateDrawingBounds();
       }
 
-      final float targetAlpha = target.outerCircleAlpha * 255;
-      outerCircleRadius = newOuterCircleRadius;
-      outerCircleAlpha = (int) Math.min(targetAlpha, (lerpTime * 1.5f * targetAlpha));
-      outerCirclePath.reset();
-      if (outerCircleCenter != null) {
-        outerCirclePath.addCircle(outerCircleCenter[0], outerCircleCenter[1], outerCircleRadius, Path.Direction.CW);
-      }
-
-      targetCircleAlpha = (int) Math.min(255.0f, (lerpTime * 1.5f * 255.0f));
-
-      if (expanding) {
-        float scaleFactor = Math.min(1.0f, lerpTime * 1.5f);
-        targetCircleRadius = TARGET_RADIUS * scaleFactor;
-        targetCircleWidth = TARGET_WIDTH * scaleFactor;
-        targetCircleHeight = TARGET_HEIGHT * scaleFactor;
-      } else {
-        targetCircleRadius = TARGET_RADIUS * lerpTime;
-        targetCircleWidth = TARGET_WIDTH * lerpTime;
-        targetCircleHeight = TARGET_HEIGHT * lerpTime;
-        targetCirclePulseRadius *= lerpTime;
-        targetCirclePulseWidth *= lerpTime;
-        targetCirclePulseHeight *= lerpTime;
-      }
-
-      textAlpha = (int) (delayedLerp(lerpTime, 0.7f) * 255);
+      frame.expand(lerpTime);
 
       if (expanding) {
         calculateDrawingBounds();
@@ -283,7 +289,7 @@ public class TapTargetView extends View {
     }
   };
 
-  final ValueAnimator expandAnimation = new FloatValueAnimatorBuilder()
+  final FloatAnimator expandAnimation = new FloatValueAnimatorBuilder()
       .duration(250)
       .delayBy(250)
       .interpolator(new AccelerateDecelerateInterpolator())
@@ -296,42 +302,44 @@ public class TapTargetView extends View {
       .onEnd(new FloatValueAnimatorBuilder.EndListener() {
         @Override
         public void onEnd() {
-          pulseAnimation.start();
+          startPulse();
         }
       })
       .build();
 
-  final ValueAnimator pulseAnimation = new FloatValueAnimatorBuilder()
-      .duration(1000)
-      .repeat(ValueAnimator.INFINITE)
-      .interpolator(new AccelerateDecelerateInterpolator())
-      .onUpdate(new FloatValueAnimatorBuilder.UpdateListener() {
-        @Override
-        public void onUpdate(float lerpTime) {
-          final float pulseLerp = delayedLerp(lerpTime, 0.5f);
-          targetCirclePulseRadius = (1.0f + pulseLerp) * TARGET_RADIUS;
-          float pulseDr = targetCirclePulseRadius - TARGET_RADIUS;
-          targetCirclePulseWidth = TARGET_WIDTH + 2 * pulseDr;
-          targetCirclePulseHeight = TARGET_HEIGHT + 2 * pulseDr;
-          targetCirclePulseAlpha = (int) ((1.0f - pulseLerp) * 255);
+  final PulseTicker.Listener pulseListener = new PulseTicker.Listener() {
+    @Override
+    public void onPulse(float lerpTime, long cycle) {
+      if (lastPulseCycle >= 0 && cycle != lastPulseCycle) {
+        pulseCyclesCompleted += cycle - lastPulseCycle;
+        if (target.pulseCycles > 0 && pulseCyclesCompleted >= target.pulseCycles) {
+          stopPulse();
+          return;
+        }
+      }
+      lastPulseCycle = cycle;
 
-          float targetDr = halfwayLerp(lerpTime) * TARGET_PULSE_RADIUS;
+      frame.pulse(lerpTime);
 
-          targetCircleRadius = TARGET_RADIUS + targetDr ;
-          targetCircleWidth = TARGET_WIDTH + targetDr * 2;
-          targetCircleHeight = TARGET_HEIGHT + targetDr * 2;
+      final long now = clock.uptimeMillis();
+      if (target.pulseIdleTimeout > 0 && now - lastInteractionTime >= target.pulseIdleTimeout) {
+        stopPulse();
+        return;
+      }
 
-          if (outerCircleRadius != calculatedOuterCircleRadius) {
-            outerCircleRadius = calculatedOuterCircleRadius;
-          }
+      // Frames arrive on vsync boundaries, so allow a little slop to avoid skipping a frame
+      // that lands just short of the interval
+      if (pulseFrameInterval > 0 && now - lastPulseFrameTime < pulseFrameInterval - 2) {
+        return;
+      }
+      lastPulseFrameTime = now;
 
-          calculateDrawingBounds();
-          invalidateViewAndOutline(drawingBounds);
-        }
-      })
-      .build();
+      calculateDrawingBounds();
+      invalidateViewAndOutline(drawingBounds);
+    }
+  };
 
-  final ValueAnimator dismissAnimation = new FloatValueAnimatorBuilder(true)
+  final FloatAnimator dismissAnimation = new FloatValueAnimatorBuilder(true)
       .duration(250)
       .interpolator(new AccelerateDecelerateInterpolator())
       .onUpdate(new FloatValueAnimatorBuilder.UpdateListener() {
@@ -343,34 +351,18 @@ public class TapTargetView extends View {
       .onEnd(new FloatValueAnimatorBuilder.EndListener() {
         @Override
         public void onEnd() {
-          onDismiss();
-          ViewUtil.removeView(parent, TapTargetView.this);
+          runOnMainThread(finishDismissRunnable);
         }
       })
       .build();
 
-  private final ValueAnimator dismissConfirmAnimation = new FloatValueAnimatorBuilder()
+  private final FloatAnimator dismissConfirmAnimation = new FloatValueAnimatorBuilder()
       .duration(250)
       .interpolator(new AccelerateDecelerateInterpolator())
       .onUpdate(new FloatValueAnimatorBuilder.UpdateListener() {
         @Override
         public void onUpdate(float lerpTime) {
-          final float spedUpLerp = Math.min(1.0f, lerpTime * 2.0f);
-          outerCircleRadius = calculatedOuterCircleRadius * (1.0f + (spedUpLerp * 0.2f));
-          outerCircleAlpha = (int) ((1.0f - spedUpLerp) * target.outerCircleAlpha * 255.0f);
-          outerCirclePath.reset();
-          if (outerCircleCenter != null) {
-            outerCirclePath.addCircle(outerCircleCenter[0], outerCircleCenter[1], outerCircleRadius, Path.Direction.CW);
-          }
-          targetCircleRadius = (1.0f - lerpTime) * TARGET_RADIUS;
-          targetCircleWidth = (1.0f - lerpTime) * TARGET_WIDTH;
-          targetCircleHeight = (1.0f - lerpTime) * TARGET_HEIGHT;
-          targetCircleAlpha = (int) ((1.0f - lerpTime) * 255.0f);
-          targetCirclePulseRadius = (1.0f + lerpTime) * TARGET_RADIUS;
-          targetCirclePulseWidth = (1.0f + lerpTime) * TARGET_WIDTH;
-          targetCirclePulseHeight = (1.0f + lerpTime) * TARGET_HEIGHT;
-          targetCirclePulseAlpha = (int) ((1.0f - lerpTime) * targetCirclePulseAlpha);
-          textAlpha = (int) ((1.0f - spedUpLerp) * 255.0f);
+          frame.confirmDismiss(lerpTime);
           calculateDrawingBounds();
           invalidateViewAndOutline(drawingBounds);
         }
@@ -378,14 +370,117 @@ public class TapTargetView extends View {
       .onEnd(new FloatValueAnimatorBuilder.EndListener() {
         @Override
         public void onEnd() {
-          onDismiss();
-          ViewUtil.removeView(parent, TapTargetView.this);
+          runOnMainThread(finishDismissRunnable);
         }
       })
       .build();
 
-  private ValueAnimator[] animators = new ValueAnimator[]
-      {expandAnimation, pulseAnimation, dismissConfirmAnimation, dismissAnimation};
+  private FloatAnimator[] animators = new FloatAnimator[]
+      {expandAnimation, dismissConfirmAnimation, dismissAnimation};
+
+  private final Runnable expandRevealRunnable = new Runnable() {
+    @Override
+    public void run() {
+      startExpandReveal();
+    }
+  };
+
+  private final Runnable finishDismissRunnable = new Runnable() {
+    @Override
+    public void run() {
+      onDismiss();
+      ViewUtil.removeView(parent, TapTargetView.this);
+    }
+  };
+
+  private final Runnable interactionRunnable = new Runnable() {
+    @Override
+    public void run() {
+      lastInteractionTime = clock.uptimeMillis();
+    }
+  };
+
+  private final Runnable restartPulseRunnable = new Runnable() {
+    @Override
+    public void run() {
+      lastInteractionTime = clock.uptimeMillis();
+      if (pulseStopped) {
+        startPulse();
+      }
+    }
+  };
+
+  private final Runnable pauseAnimationsRunnable = new Runnable() {
+    @Override
+    public void run() {
+      applyAnimationsPaused(true);
+    }
+  };
+
+  private final Runnable resumeAnimationsRunnable = new Runnable() {
+    @Override
+    public void run() {
+      applyAnimationsPaused(false);
+    }
+  };
+
+  private final Runnable cancelAnimationsRunnable = new Runnable() {
+    @Override
+    public void run() {
+      released = true;
+      for (final FloatAnimator animator : animators) {
+        animator.cancel();
+        animator.removeAllUpdateListeners();
+      }
+      pulsing = false;
+      unsubscribePulse();
+    }
+  };
+
+  private final Runnable applyLayoutRunnable = new Runnable() {
+    @Override
+    public void run() {
+      applyLayout();
+    }
+  };
+
+  private final Runnable startExpandRunnable = new Runnable() {
+    @Override
+    public void run() {
+      if (shouldRevealOnRenderThread()) {
+        postDelayed(expandRevealRunnable, expandAnimation.getScaledStartDelay());
+      } else {
+        startAnimation(expandAnimation);
+      }
+    }
+  };
+
+  private final Runnable redrawRunnable = new Runnable() {
+    @Override
+    public void run() {
+      if (surfaceRenderer != null) {
+        surfaceRenderer.requestRender();
+      } else {
+        invalidate();
+      }
+    }
+  };
+
+  private final Runnable applyTrackedBoundsRunnable = new Runnable() {
+    @Override
+    public void run() {
+      applyTrackedBounds();
+    }
+  };
+
+  private final ViewTreeObserver.OnPreDrawListener trackingListener =
+      new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+          trackTarget();
+          return true;
+        }
+      };
 
   private final ViewTreeObserver.OnGlobalLayoutListener globalLayoutListener;
 
@@ -411,109 +506,69 @@ public class TapTargetView extends View {
                        @Nullable final Listener userListener) {
     super(context);
     if (target == null) throw new IllegalArgumentException("Target cannot be null");
+    if (target instanceof LazyTapTarget) {
+      throw new IllegalArgumentException("Lazy targets can only be shown by a TapTargetSequence");
+    }
 
+    TraceCompat.beginSection("TapTargetView.init");
     this.target = target;
     this.parent = parent;
     this.boundingParent = boundingParent;
+    this.boundaries = boundingParent != null ? new PromptBoundaries(this, boundingParent) : null;
     this.listener = userListener != null ? userListener : new Listener();
-    this.title = target.title;
-    this.description = target.description;
-    this.confirmLabel = target.confirmLabel;
-
-    TARGET_PADDING = UiUtil.dp(context, 20);
-    CIRCLE_PADDING = UiUtil.dp(context, 40);
-    TARGET_RADIUS = UiUtil.dp(context, target.targetRadius);
-    TARGET_WIDTH = UiUtil.dp(context, Math.max(target.targetRadius * 2, target.targetWidth));
-    TARGET_HEIGHT = UiUtil.dp(context, Math.max(target.targetRadius * 2, target.targetHeight));
-    TEXT_PADDING = UiUtil.dp(context, 40);
-    TEXT_SPACING = UiUtil.dp(context, 8);
-    TEXT_MAX_WIDTH = UiUtil.dp(context, 360);
-    TEXT_POSITIONING_BIAS = UiUtil.dp(context, 20);
-    GUTTER_DIM = UiUtil.dp(context, 88);
-    SHADOW_DIM = UiUtil.dp(context, 8);
-    SHADOW_JITTER_DIM = UiUtil.dp(context, 1);
-    TARGET_PULSE_RADIUS = (int) (0.1f * TARGET_RADIUS);
-
-    pulseEnabled = target.targetPulseEnabled;
-
-    outerCirclePath = new Path();
-    targetBounds = new Rect();
+
+    renderer = target.renderer != null ? target.renderer : TapTargetRenderer.DEFAULT;
+    clock = target.animationClock;
+    // As with ValueAnimator, animations on the system clock follow the animator duration scale
+    durationScale = clock == AnimationClock.DEFAULT ? UiUtil.animatorDurationScale(context) : 1.0f;
+    for (final FloatAnimator animator : animators) {
+      animator.setClock(clock);
+      animator.setDurationScale(durationScale);
+    }
+    pulseFrameInterval = target.pulseFrameRate > 0 ? 1000 / target.pulseFrameRate : 0;
+
     drawingBounds = new Rect();
 
-    titlePaint = new TextPaint();
-    titlePaint.setTextSize(target.titleTextSizePx(context));
-    titlePaint.setTypeface(Typeface.create("sans-serif-medium", Typeface.NORMAL));
-//    titlePaint.setAntiAlias(true);
-    titlePaint.setFlags(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
-
-    descriptionPaint = new TextPaint();
-    descriptionPaint.setTextSize(target.descriptionTextSizePx(context));
-    descriptionPaint.setTypeface(Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL));
-//    descriptionPaint.setAntiAlias(true);
-    descriptionPaint.setFlags(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
-//    descriptionPaint.setAlpha((int) (0.54f * 255.0f));
-
-    confirmlabelPaint = new TextPaint();
-    confirmlabelPaint.setTextSize(target.confirmLabelTextSizePx(context));
-    confirmlabelPaint.setTypeface(Typeface.create(Typeface.SANS_SERIF, Typeface.NORMAL));
-//    confirmlabelPaint.setAntiAlias(true);
-    confirmlabelPaint.setFlags(Paint.ANTI_ALIAS_FLAG | Paint.SUBPIXEL_TEXT_FLAG);
-
-    outerCirclePaint = new Paint();
-    outerCirclePaint.setAntiAlias(true);
-    outerCirclePaint.setAlpha((int) (target.outerCircleAlpha * 255.0f));
-
-    outerCircleShadowPaint = new Paint();
-    outerCircleShadowPaint.setAntiAlias(true);
-    outerCircleShadowPaint.setAlpha(50);
-    outerCircleShadowPaint.setStyle(Paint.Style.STROKE);
-    outerCircleShadowPaint.setStrokeWidth(SHADOW_JITTER_DIM);
-    outerCircleShadowPaint.setColor(Color.BLACK);
-
-    targetCirclePaint = new Paint();
-    targetCirclePaint.setAntiAlias(true);
-
-    targetCirclePulsePaint = new Paint();
-    targetCirclePulsePaint.setAntiAlias(true);
+    TraceCompat.beginSection("TapTargetView.paints");
+    // Targets without a shared style resolve their own options the same way a style does, and
+    // the frame takes the paints of that private style instead of copying them
+    style = target.style != null ? target.style : target.styleBuilder().build(context);
+    frame = new PromptFrame(context, target, style, target.style == null);
+    TraceCompat.endSection();
 
+    TraceCompat.beginSection("TapTargetView.theme");
     applyTargetOptions(context);
+    TraceCompat.endSection();
 
     globalLayoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
       @Override
       public void onGlobalLayout() {
-        updateTextLayouts();
         target.onReady(new Runnable() {
           @Override
           public void run() {
-            final int[] offset = new int[2];
-
-            targetBounds.set(target.bounds());
-
-            getLocationOnScreen(offset);
-            targetBounds.offset(-offset[0], -offset[1]);
+            if (isDismissed) return;
 
-            if (boundingParent != null) {
-              final WindowManager windowManager
-                  = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-              final DisplayMetrics displayMetrics = new DisplayMetrics();
-              windowManager.getDefaultDisplay().getMetrics(displayMetrics);
-
-              final Rect rect = new Rect();
-              boundingParent.getWindowVisibleDisplayFrame(rect);
+            getLocationOnScreen(trackingOffset);
+            if (boundaries != null) {
+              boundaries.update();
+            }
 
-              // We bound the boundaries to be within the screen's coordinates to
-              // handle the case where the layout bounds do not match
-              // (like when FLAG_LAYOUT_NO_LIMITS is specified)
-              topBoundary = Math.max(0, rect.top);
-              bottomBoundary = Math.min(rect.bottom, displayMetrics.heightPixels);
+            synchronized (pendingTargetBounds) {
+              pendingTargetBounds.set(target.bounds());
+              pendingTargetBounds.offset(-trackingOffset[0], -trackingOffset[1]);
+              pendingWidth = getWidth();
+              pendingHeight = getHeight();
+              if (boundaries != null) {
+                pendingTopBoundary = boundaries.top;
+                pendingBottomBoundary = boundaries.bottom;
+              }
             }
 
-            drawTintedTarget();
             requestFocus();
-            calculateDimensions();
+            runOnAnimationThread(applyLayoutRunnable);
             if (!visible) {
-              expandAnimation.start();
               visible = true;
+              runOnAnimationThread(startExpandRunnable);
             }
           }
         });
@@ -521,19 +576,25 @@ public class TapTargetView extends View {
     };
 
     getViewTreeObserver().addOnGlobalLayoutListener(globalLayoutListener);
+    if (target.trackTarget) {
+      getViewTreeObserver().addOnPreDrawListener(trackingListener);
+    }
 
     setFocusableInTouchMode(true);
     setClickable(true);
     setOnClickListener(new OnClickListener() {
       @Override
       public void onClick(View v) {
-        if (listener == null || outerCircleCenter == null || !isInteractable) return;
+        if (listener == null || !isInteractable) return;
+
+        final FrameState state = getTouchState();
+        if (!state.hasOuterCircle) return;
 
-        final boolean clickedInTarget = Math.abs((int) lastTouchX - targetBounds.centerX()) < targetCircleWidth / 2
-                && Math.abs((int) lastTouchY - targetBounds.centerY()) < targetCircleHeight / 2;
-        final double distanceToOuterCircleCenter = distance(outerCircleCenter[0], outerCircleCenter[1],
-            (int) lastTouchX, (int) lastTouchY);
-        final boolean clickedInsideOfOuterCircle = distanceToOuterCircleCenter <= outerCircleRadius;
+        final boolean clickedInTarget = PromptGeometry.inTarget((int) lastTouchX, (int) lastTouchY,
+            state.targetBounds.centerX(), state.targetBounds.centerY(),
+            state.targetCircleWidth, state.targetCircleHeight);
+        final boolean clickedInsideOfOuterCircle = PromptGeometry.inCircle((int) lastTouchX, (int) lastTouchY,
+            state.outerCircleCenterX, state.outerCircleCenterY, state.outerCircleRadius);
 
         if (clickedInTarget) {
           isInteractable = false;
@@ -552,7 +613,7 @@ public class TapTargetView extends View {
       public boolean onLongClick(View v) {
         if (listener == null) return false;
 
-        if (targetBounds.contains((int) lastTouchX, (int) lastTouchY)) {
+        if (getTouchState().targetBounds.contains((int) lastTouchX, (int) lastTouchY)) {
           listener.onTargetLongClick(TapTargetView.this);
           return true;
         }
@@ -560,33 +621,36 @@ public class TapTargetView extends View {
         return false;
       }
     });
+    TraceCompat.endSection();
   }
 
   protected void applyTargetOptions(Context context) {
-    shouldTintTarget = target.tintTarget;
-    shouldDrawShadow = target.drawShadow;
+    final boolean shouldDrawShadow = target.drawShadow;
     cancelable = target.cancelable;
 
     // We can't clip out portions of a view outline, so if the user specified a transparent
     // target, we need to fallback to drawing a jittered shadow approximation
-    if (shouldDrawShadow && Build.VERSION.SDK_INT >= 21 && !target.transparentTarget) {
+    if (shouldDrawShadow && Build.VERSION.SDK_INT >= 21 && !target.transparentTarget
+        && !target.renderOffMainThread) {
       outlineProvider = new ViewOutlineProvider() {
         @TargetApi(Build.VERSION_CODES.LOLLIPOP)
         @Override
         public void getOutline(View view, Outline outline) {
-          if (outerCircleCenter == null) return;
-          outline.setOval(
-              (int) (outerCircleCenter[0] - outerCircleRadius), (int) (outerCircleCenter[1] - outerCircleRadius),
-              (int) (outerCircleCenter[0] + outerCircleRadius), (int) (outerCircleCenter[1] + outerCircleRadius));
-          outline.setAlpha(outerCircleAlpha / 255.0f);
+          if (!frame.placed) return;
+          final int centerX = frame.outerCircleCenter[0];
+          final int centerY = frame.outerCircleCenter[1];
+          final float radius = frame.outerCircleRadius;
+          outline.setOval((int) (centerX - radius), (int) (centerY - radius),
+              (int) (centerX + radius), (int) (centerY + radius));
+          outline.setAlpha(frame.outerCircleAlpha / 255.0f);
           if (Build.VERSION.SDK_INT >= 22) {
-            outline.offset(0, SHADOW_DIM);
+            outline.offset(0, frame.SHADOW_DIM);
           }
         }
       };
 
       setOutlineProvider(outlineProvider);
-      setElevation(SHADOW_DIM);
+      setElevation(frame.SHADOW_DIM);
     }
 
     if (shouldDrawShadow && outlineProvider == null && Build.VERSION.SDK_INT < 18) {
@@ -595,69 +659,49 @@ public class TapTargetView extends View {
       setLayerType(LAYER_TYPE_HARDWARE, null);
     }
 
-    final Resources.Theme theme = context.getTheme();
-    isDark = UiUtil.themeIntAttr(context, "isLightTheme") == 0;
-
-    final Integer outerCircleColor = target.outerCircleColorInt(context);
-    if (outerCircleColor != null) {
-      outerCirclePaint.setColor(outerCircleColor);
-    } else if (theme != null) {
-      outerCirclePaint.setColor(UiUtil.themeIntAttr(context, "colorPrimary"));
-    } else {
-      outerCirclePaint.setColor(Color.WHITE);
-    }
+    frame.drawShadow = shouldDrawShadow && outlineProvider == null;
 
-    final Integer targetCircleColor = target.targetCircleColorInt(context);
-    if (targetCircleColor != null) {
-      targetCirclePaint.setColor(targetCircleColor);
-    } else {
-      targetCirclePaint.setColor(isDark ? Color.BLACK : Color.WHITE);
-    }
-
-    if (target.transparentTarget) {
-      targetCirclePaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.CLEAR));
-    }
-
-    targetCirclePulsePaint.setColor(targetCirclePaint.getColor());
-
-    final Integer targetDimColor = target.dimColorInt(context);
-    if (targetDimColor != null) {
-      dimColor = UiUtil.setAlpha(targetDimColor, 0.3f);
-    } else {
-      dimColor = -1;
-    }
-
-    final Integer titleTextColor = target.titleTextColorInt(context);
-    if (titleTextColor != null) {
-      titlePaint.setColor(titleTextColor);
-    } else {
-      titlePaint.setColor(isDark ? Color.BLACK : Color.WHITE);
-    }
-
-    final Integer descriptionTextColor = target.descriptionTextColorInt(context);
-    if (descriptionTextColor != null) {
-      descriptionPaint.setColor(descriptionTextColor);
-    } else {
-      descriptionPaint.setColor(titlePaint.getColor());
-    }
+    isDark = style.isDark;
+    dimColor = style.dimColor;
+  }
 
-    final Integer confirmLabelTextColor = target.confirmLabelTextColorInt(context);
-    if (confirmLabelTextColor != null) {
-      confirmlabelPaint.setColor(confirmLabelTextColor);
-    } else {
-      confirmlabelPaint.setColor(titlePaint.getColor());
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (boundaries != null) {
+      boundaries.requestInsets();
     }
-
-    if (target.titleTypeface != null) {
-      titlePaint.setTypeface(target.titleTypeface);
+    if (target.renderOffMainThread && surfaceRenderer == null && !isDismissed
+        && Build.VERSION.SDK_INT >= 23 && isHardwareAccelerated() && parent instanceof ViewGroup) {
+      surfaceRenderer = new SurfaceRenderer(this);
+      // Everything is drawn into the texture view, so this view no longer needs a layer
+      setLayerType(LAYER_TYPE_NONE, null);
+
+      // Adding a sibling while the parent is still dispatching attach events is not safe
+      post(new Runnable() {
+        @Override
+        public void run() {
+          if (!isDismissed && surfaceRenderer != null) {
+            surfaceRenderer.attach((ViewGroup) parent);
+          }
+        }
+      });
     }
+  }
 
-    if (target.descriptionTypeface != null) {
-      descriptionPaint.setTypeface(target.descriptionTypeface);
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+    if (boundaries != null) {
+      boundaries.invalidate();
     }
+  }
 
-    if (target.confirmLabelTypeface != null) {
-      confirmlabelPaint.setTypeface(target.confirmLabelTypeface);
+  @Override
+  protected void onConfigurationChanged(Configuration newConfig) {
+    super.onConfigurationChanged(newConfig);
+    if (boundaries != null) {
+      boundaries.invalidate();
     }
   }
 
@@ -667,6 +711,18 @@ public class TapTargetView extends View {
     onDismiss(false);
   }
 
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    updateAnimationsPaused();
+  }
+
+  @Override
+  public void onWindowFocusChanged(boolean hasWindowFocus) {
+    super.onWindowFocusChanged(hasWindowFocus);
+    updateAnimationsPaused();
+  }
+
   void onDismiss() {
     onDismiss(true);
   }
@@ -676,12 +732,19 @@ public class TapTargetView extends View {
 
     isDismissed = true;
 
-    for (final ValueAnimator animator : animators) {
-      animator.cancel();
-      animator.removeAllUpdateListeners();
+    runOnAnimationThread(cancelAnimationsRunnable);
+    if (surfaceRenderer != null) {
+      surfaceRenderer.release((ViewGroup) parent);
+    }
+
+    removeCallbacks(expandRevealRunnable);
+    if (revealAnimator != null) {
+      revealAnimator.cancel();
+      revealAnimator = null;
     }
 
     ViewUtil.removeOnGlobalLayoutListener(getViewTreeObserver(), globalLayoutListener);
+    getViewTreeObserver().removeOnPreDrawListener(trackingListener);
     visible = false;
 
     if (listener != null) {
@@ -691,84 +754,29 @@ public class TapTargetView extends View {
 
   @Override
   protected void onDraw(Canvas c) {
-    if (isDismissed || outerCircleCenter == null) return;
+    if (surfaceRenderer != null) return;
+    drawPrompt(c);
+  }
+
+  /** Draws the prompt's current state. Called on the render thread if rendering off the main thread **/
+  void drawPrompt(Canvas c) {
+    if (released || !frame.placed) return;
 
+    ++framesRendered;
+    drawFrame(c);
+  }
+
+  /** Draws the prompt's current state without counting it as a rendered frame **/
+  void drawFrame(Canvas c) {
     if (topBoundary > 0 && bottomBoundary > 0) {
-      c.clipRect(0, topBoundary, getWidth(), bottomBoundary);
+      c.clipRect(0, topBoundary, layoutWidth, bottomBoundary);
     }
 
     if (dimColor != -1) {
       c.drawColor(dimColor);
     }
 
-    int saveCount;
-    outerCirclePaint.setAlpha(outerCircleAlpha);
-    if (shouldDrawShadow && outlineProvider == null) {
-      saveCount = c.save();
-      {
-        c.clipPath(outerCirclePath, Region.Op.DIFFERENCE);
-        drawJitteredShadow(c);
-      }
-      c.restoreToCount(saveCount);
-    }
-    c.drawCircle(outerCircleCenter[0], outerCircleCenter[1], outerCircleRadius, outerCirclePaint);
-
-    targetCirclePaint.setAlpha(targetCircleAlpha);
-    if (pulseEnabled && targetCirclePulseAlpha > 0) {
-      targetCirclePulsePaint.setAlpha(targetCirclePulseAlpha);
-//      c.drawCircle(targetBounds.centerX(), targetBounds.centerY(),
-//          targetCirclePulseRadius, targetCirclePulsePaint);
-      targetPulseShapeBounds.set(targetBounds.centerX() - targetCirclePulseWidth / 2,
-              targetBounds.centerY() - targetCirclePulseHeight / 2,
-              targetBounds.centerX() + targetCirclePulseWidth / 2,
-              targetBounds.centerY() + targetCirclePulseHeight / 2);
-      c.drawRoundRect(targetPulseShapeBounds, targetCirclePulseRadius, targetCirclePulseRadius, targetCirclePulsePaint);
-    }
-    targetShapeBounds.set(targetBounds.centerX() - targetCircleWidth / 2,
-            targetBounds.centerY() - targetCircleHeight / 2,
-            targetBounds.centerX() + targetCircleWidth / 2,
-            targetBounds.centerY() + targetCircleHeight / 2);
-    c.drawRoundRect(targetShapeBounds, targetCircleRadius, targetCircleRadius, targetCirclePaint);
-//    c.drawCircle(targetBounds.centerX(), targetBounds.centerY(),
-//        targetCircleRadius, targetCirclePaint);
-
-    saveCount = c.save();
-    {
-      c.translate(textBounds.left, textBounds.top);
-      titlePaint.setAlpha(textAlpha);
-      if (titleLayout != null) {
-        titleLayout.draw(c);
-      }
-
-      if (descriptionLayout != null && titleLayout != null) {
-        c.translate(0, titleLayout.getHeight() + TEXT_SPACING);
-//        descriptionPaint.setAlpha((int) (0.54f * textAlpha));
-        descriptionPaint.setAlpha(textAlpha);
-        descriptionLayout.draw(c);
-      }
-
-      if (confirmLabelLayout != null && descriptionLayout != null) {
-        c.translate(0, descriptionLayout.getHeight() + TEXT_SPACING);
-        confirmlabelPaint.setAlpha(textAlpha);
-        confirmLabelLayout.draw(c);
-      }
-    }
-    c.restoreToCount(saveCount);
-
-    saveCount = c.save();
-    {
-      if (tintedTarget != null) {
-        c.translate(targetBounds.centerX() - tintedTarget.getWidth() / 2,
-            targetBounds.centerY() - tintedTarget.getHeight() / 2);
-        c.drawBitmap(tintedTarget, 0, 0, targetCirclePaint);
-      } else if (target.icon != null) {
-        c.translate(targetBounds.centerX() - target.icon.getBounds().width() / 2,
-            targetBounds.centerY() - target.icon.getBounds().height() / 2);
-        target.icon.setAlpha(targetCirclePaint.getAlpha());
-        target.icon.draw(c);
-      }
-    }
-    c.restoreToCount(saveCount);
+    renderer.draw(frame, c);
 
     if (debug) {
       drawDebugInformation(c);
@@ -779,23 +787,18 @@ public class TapTargetView extends View {
   public boolean onTouchEvent(MotionEvent e) {
     lastTouchX = e.getX();
     lastTouchY = e.getY();
+    runOnAnimationThread(isVisible() && isInteractable ? restartPulseRunnable : interactionRunnable);
     return super.onTouchEvent(e);
   }
 
   @Override
   public boolean onKeyDown(int keyCode, KeyEvent event) {
-    if (isVisible() && cancelable && keyCode == KeyEvent.KEYCODE_BACK) {
-      event.startTracking();
-      return true;
-    }
-
-    return false;
+    return isVisible() && cancelable && ViewUtil.trackBackKey(keyCode, event);
   }
 
   @Override
   public boolean onKeyUp(int keyCode, KeyEvent event) {
-    if (isVisible() && isInteractable && cancelable
-        && keyCode == KeyEvent.KEYCODE_BACK && event.isTracking() && !event.isCanceled()) {
+    if (isVisible() && isInteractable && cancelable && ViewUtil.isBackKeyRelease(keyCode, event)) {
       isInteractable = false;
 
       if (listener != null) {
@@ -815,10 +818,23 @@ public class TapTargetView extends View {
    * @param tappedTarget If the user tapped the target or not
    *                     (results in different dismiss animations)
    */
-  public void dismiss(boolean tappedTarget) {
-    pulseAnimation.cancel();
+  public void dismiss(final boolean tappedTarget) {
+    runOnAnimationThread(new Runnable() {
+      @Override
+      public void run() {
+        startDismissAnimation(tappedTarget);
+      }
+    });
+  }
+
+  void startDismissAnimation(boolean tappedTarget) {
+    pulseStopped = false;
+    pulsing = false;
+    unsubscribePulse();
     expandAnimation.cancel();
-    if (tappedTarget) {
+    if (shouldRevealOnRenderThread()) {
+      startDismissReveal();
+    } else if (tappedTarget) {
       dismissConfirmAnimation.start();
     } else {
       dismissAnimation.start();
@@ -829,7 +845,7 @@ public class TapTargetView extends View {
   public void setDrawDebug(boolean status) {
     if (debug != status) {
       debug = status;
-      postInvalidate();
+      runOnAnimationThread(redrawRunnable);
     }
   }
 
@@ -838,24 +854,215 @@ public class TapTargetView extends View {
     return !isDismissed && visible;
   }
 
-  void drawJitteredShadow(Canvas c) {
-    final float baseAlpha = 0.20f * outerCircleAlpha;
-    outerCircleShadowPaint.setStyle(Paint.Style.FILL_AND_STROKE);
-    outerCircleShadowPaint.setAlpha((int) baseAlpha);
-    if (outerCircleCenter != null) {
-      c.drawCircle(outerCircleCenter[0], outerCircleCenter[1] + SHADOW_DIM, outerCircleRadius, outerCircleShadowPaint);
+  /** Returns the name of the animation currently running. Must be called on the animation thread **/
+  String animationPhase() {
+    if (dismissAnimation.isStarted() || dismissConfirmAnimation.isStarted()) {
+      return "dismiss";
+    } else if (expandAnimation.isStarted()) {
+      return "expand";
+    } else if (pulsing) {
+      return "pulse";
+    }
+    return "idle";
+  }
+
+  /** Returns the number of frames this view has drawn so far **/
+  public long getFramesRendered() {
+    return framesRendered;
+  }
+
+  void startPulse() {
+    if (durationScale == 0) {
+      // Animations are turned off, so rest where the pulse would have settled
+      stopPulse();
+      return;
+    }
+
+    pulseStopped = false;
+    pulseCyclesCompleted = 0;
+    lastPulseFrameTime = 0;
+    lastInteractionTime = clock.uptimeMillis();
+    pulsing = true;
+    if (!animatorsPaused) {
+      subscribePulse();
+    }
+  }
+
+  /** Joins the pulse shared by all prompts on this clock and thread **/
+  private void subscribePulse() {
+    if (pulseTicker == null) {
+      pulseTicker = PulseTicker.forClock(clock);
+    }
+    pulseTicker.setDurationScale(durationScale);
+    // Time spent away from the ticker does not count towards the pulse cycles
+    lastPulseCycle = -1;
+    pulseTicker.subscribe(pulseListener);
+  }
+
+  private void unsubscribePulse() {
+    if (pulseTicker != null) {
+      pulseTicker.unsubscribe(pulseListener);
+    }
+  }
+
+  /** Starts the given animation, immediately pausing it if the window is hidden or unfocused **/
+  void startAnimation(FloatAnimator animator) {
+    animator.start();
+    if (animatorsPaused) {
+      animator.pause();
     }
-    outerCircleShadowPaint.setStyle(Paint.Style.STROKE);
-    final int numJitters = 7;
-    for (int i = numJitters - 1; i > 0; --i) {
-      outerCircleShadowPaint.setAlpha((int) ((i / (float) numJitters) * baseAlpha));
-      if (outerCircleCenter != null) {
-        c.drawCircle(outerCircleCenter[0], outerCircleCenter[1] + SHADOW_DIM,
-                outerCircleRadius + (numJitters - i) * SHADOW_JITTER_DIM, outerCircleShadowPaint);
+  }
+
+  /**
+   * Pauses the expand and pulse animations while the window is hidden or unfocused, and resumes
+   * them where they left off once it is shown again. Dismiss animations are left running so that
+   * the view is still removed and its listener notified.
+   */
+  void updateAnimationsPaused() {
+    final boolean shouldPause = getWindowVisibility() != VISIBLE || !hasWindowFocus();
+    if (isDismissed || shouldPause == animationsPaused) {
+      return;
+    }
+
+    animationsPaused = shouldPause;
+    runOnAnimationThread(shouldPause ? pauseAnimationsRunnable : resumeAnimationsRunnable);
+  }
+
+  void applyAnimationsPaused(boolean paused) {
+    animatorsPaused = paused;
+    if (paused) {
+      expandAnimation.pause();
+      unsubscribePulse();
+    } else {
+      expandAnimation.resume();
+      if (pulsing) {
+        subscribePulse();
       }
     }
   }
 
+  /** Runs the given runnable on the thread driving this view's animators **/
+  void runOnAnimationThread(Runnable runnable) {
+    if (surfaceRenderer != null) {
+      surfaceRenderer.post(runnable);
+    } else {
+      runnable.run();
+    }
+  }
+
+  /** Runs the given runnable on the main thread, posting it if called from the render thread **/
+  void runOnMainThread(Runnable runnable) {
+    if (surfaceRenderer != null) {
+      post(runnable);
+    } else {
+      runnable.run();
+    }
+  }
+
+  /** Returns the state to hit-test touches against. Must be called on the main thread **/
+  FrameState getTouchState() {
+    if (surfaceRenderer != null) {
+      surfaceRenderer.copyState(touchState);
+    } else {
+      touchState.set(frame);
+    }
+    return touchState;
+  }
+
+  boolean shouldRevealOnRenderThread() {
+    return surfaceRenderer == null && clock == AnimationClock.DEFAULT
+        && target.renderThreadAnimations && Build.VERSION.SDK_INT >= 21
+        && isHardwareAccelerated() && frame.placed;
+  }
+
+  /** Draws the fully expanded state and reveals it from the target's center **/
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  void startExpandReveal() {
+    if (isDismissed || !isAttachedToWindow()) return;
+
+    expandContractUpdateListener.onUpdate(1.0f);
+    startReveal(0, getRevealRadius(), new Runnable() {
+      @Override
+      public void run() {
+        startPulse();
+      }
+    });
+  }
+
+  /** Hides the current state by contracting the reveal back into the target's center **/
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  void startDismissReveal() {
+    removeCallbacks(expandRevealRunnable);
+    if (revealAnimator != null) {
+      revealAnimator.cancel();
+    }
+
+    if (!isAttachedToWindow()) {
+      onDismiss();
+      ViewUtil.removeView(parent, this);
+      return;
+    }
+
+    startReveal(getRevealRadius(), 0, new Runnable() {
+      @Override
+      public void run() {
+        // The reveal clip is dropped once the animation ends, so hide the view to avoid a flash
+        // of the full prompt before it is removed
+        setVisibility(INVISIBLE);
+        onDismiss();
+        ViewUtil.removeView(parent, TapTargetView.this);
+      }
+    });
+  }
+
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+  void startReveal(float startRadius, float endRadius, final Runnable onEnd) {
+    final Animator reveal = ViewAnimationUtils.createCircularReveal(this,
+        frame.targetBounds.centerX(), frame.targetBounds.centerY(), startRadius, endRadius);
+    reveal.setDuration(250);
+    reveal.setInterpolator(new AccelerateDecelerateInterpolator());
+    reveal.addListener(new AnimatorListenerAdapter() {
+      boolean canceled;
+
+      @Override
+      public void onAnimationCancel(Animator animation) {
+        canceled = true;
+      }
+
+      @Override
+      public void onAnimationEnd(Animator animation) {
+        if (revealAnimator == animation) {
+          revealAnimator = null;
+        }
+
+        if (!canceled) {
+          onEnd.run();
+        }
+      }
+    });
+
+    revealAnimator = reveal;
+    reveal.start();
+  }
+
+  /** Returns the radius needed for a reveal from the target's center to cover the whole view **/
+  int getRevealRadius() {
+    return PromptGeometry.maxDistanceToPoints(frame.targetBounds.centerX(), frame.targetBounds.centerY(),
+        0, 0, getWidth(), getHeight());
+  }
+
+  /** Stops pulsing and settles the target circle back at its resting size **/
+  void stopPulse() {
+    pulseStopped = true;
+    pulsing = false;
+    unsubscribePulse();
+
+    frame.settle();
+
+    calculateDrawingBounds();
+    invalidateViewAndOutline(drawingBounds);
+  }
+
   void drawDebugInformation(Canvas c) {
     if (debugPaint == null) {
       debugPaint = new Paint();
@@ -872,11 +1079,16 @@ public class TapTargetView extends View {
 
     // Draw wireframe
     debugPaint.setStyle(Paint.Style.STROKE);
+    final Rect textBounds = frame.textBounds;
+    final Rect targetBounds = frame.targetBounds;
+    final int[] outerCircleCenter = frame.outerCircleCenter;
     c.drawRect(textBounds, debugPaint);
     c.drawRect(targetBounds, debugPaint);
     c.drawCircle(outerCircleCenter[0], outerCircleCenter[1], 10, debugPaint);
-    c.drawCircle(outerCircleCenter[0], outerCircleCenter[1], calculatedOuterCircleRadius - CIRCLE_PADDING, debugPaint);
-    c.drawCircle(targetBounds.centerX(), targetBounds.centerY(), TARGET_RADIUS + TARGET_PADDING, debugPaint);
+    c.drawCircle(outerCircleCenter[0], outerCircleCenter[1],
+        frame.calculatedOuterCircleRadius - frame.CIRCLE_PADDING, debugPaint);
+    c.drawCircle(targetBounds.centerX(), targetBounds.centerY(),
+        frame.TARGET_RADIUS + frame.TARGET_PADDING, debugPaint);
 
     // Draw positions and dimensions
     debugPaint.setStyle(Paint.Style.FILL);
@@ -884,7 +1096,7 @@ public class TapTargetView extends View {
             "Text bounds: " + textBounds.toShortString() + "\n" +
             "Target bounds: " + targetBounds.toShortString() + "\n" +
             "Center: " + outerCircleCenter[0] + " " + outerCircleCenter[1] + "\n" +
-            "View size: " + getWidth() + " " + getHeight() + "\n" +
+            "View size: " + layoutWidth + " " + layoutHeight + "\n" +
             "Target bounds: " + targetBounds.toShortString();
 
     if (debugStringBuilder == null) {
@@ -895,7 +1107,7 @@ public class TapTargetView extends View {
     }
 
     if (debugLayout == null) {
-      debugLayout = new DynamicLayout(debugText, debugTextPaint, getWidth(), Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
+      debugLayout = new DynamicLayout(debugText, debugTextPaint, layoutWidth, Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
     }
 
     final int saveCount = c.save();
@@ -909,188 +1121,74 @@ public class TapTargetView extends View {
     c.restoreToCount(saveCount);
   }
 
-  void drawTintedTarget() {
-    final Drawable icon = target.icon;
-    if (!shouldTintTarget || icon == null) {
-      tintedTarget = null;
-      return;
-    }
-
-    if (tintedTarget != null) return;
-
-    tintedTarget = Bitmap.createBitmap(icon.getIntrinsicWidth(), icon.getIntrinsicHeight(),
-        Bitmap.Config.ARGB_8888);
-    final Canvas canvas = new Canvas(tintedTarget);
-    icon.setColorFilter(new PorterDuffColorFilter(
-        outerCirclePaint.getColor(), PorterDuff.Mode.SRC_ATOP));
-    icon.draw(canvas);
-    icon.setColorFilter(null);
-  }
+  /** Reads where the target is now and, if it moved, has the prompt follow it **/
+  void trackTarget() {
+    if (!visible || isDismissed || !target.readBounds(trackedBounds)) return;
 
-  void updateTextLayouts() {
-    final int textWidth = Math.min(getWidth(), TEXT_MAX_WIDTH) - TEXT_PADDING * 2;
-    if (textWidth <= 0) {
-      return;
-    }
-
-    titleLayout = new StaticLayout(title, titlePaint, textWidth,
-            Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
-
-    if (description != null) {
-      descriptionLayout = new StaticLayout(description, descriptionPaint, textWidth,
-              Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
-    } else {
-      descriptionLayout = null;
-    }
-
-    if (confirmLabel != null) {
-      confirmLabelLayout = new StaticLayout(confirmLabel, confirmlabelPaint, textWidth,
-              Layout.Alignment.ALIGN_NORMAL, 1.0f, 0.0f, false);
-    } else {
-      confirmLabelLayout = null;
+    getLocationOnScreen(trackingOffset);
+    trackedBounds.offset(-trackingOffset[0], -trackingOffset[1]);
+    synchronized (pendingTargetBounds) {
+      pendingTargetBounds.set(trackedBounds);
     }
+    runOnAnimationThread(applyTrackedBoundsRunnable);
   }
 
-  float halfwayLerp(float lerp) {
-    if (lerp < 0.5f) {
-      return lerp / 0.5f;
+  /** Lays the frame out with the pending layout inputs **/
+  void applyLayout() {
+    TraceCompat.beginSection("TapTargetView.layout");
+    synchronized (pendingTargetBounds) {
+      layoutTargetBounds.set(pendingTargetBounds);
+      layoutWidth = pendingWidth;
+      layoutHeight = pendingHeight;
+      topBoundary = pendingTopBoundary;
+      bottomBoundary = pendingBottomBoundary;
     }
 
-    return (1.0f - lerp) / 0.5f;
+    frame.layoutText(layoutWidth);
+    frame.prepareTintedTarget();
+    frame.place(layoutTargetBounds, layoutWidth, layoutHeight, topBoundary, bottomBoundary);
+    TraceCompat.endSection();
   }
 
-  float delayedLerp(float lerp, float threshold) {
-    if (lerp < threshold) {
-      return 0.0f;
+  /**
+   * Moves the prompt to the pending target bounds. Text layouts, the tinted target and the
+   * boundaries do not depend on the target's position and are left as they are, so this only
+   * places the text and the outer circle again and redraws where the prompt was and now is
+   */
+  void applyTrackedBounds() {
+    synchronized (pendingTargetBounds) {
+      if (!frame.placed || frame.targetBounds.equals(pendingTargetBounds)) return;
+      layoutTargetBounds.set(pendingTargetBounds);
     }
 
-    return (lerp - threshold) / (1.0f - threshold);
-  }
+    calculateDrawingBounds();
+    previousDrawingBounds.set(drawingBounds);
+
+    // Whichever animation is running keeps its progress by scaling the radius along
+    final int previousRadius = frame.calculatedOuterCircleRadius;
+    frame.place(layoutTargetBounds, layoutWidth, layoutHeight, topBoundary, bottomBoundary);
+    final float radius = frame.outerCircleRadius;
+    frame.setOuterCircleRadius(previousRadius > 0
+        ? radius * frame.calculatedOuterCircleRadius / previousRadius : radius);
 
-  void calculateDimensions() {
-    textBounds = getTextBounds();
-    outerCircleCenter = getOuterCircleCenterPoint();
-    calculatedOuterCircleRadius = getOuterCircleRadius(outerCircleCenter[0], outerCircleCenter[1], textBounds, targetBounds);
+    calculateDrawingBounds();
+    previousDrawingBounds.union(drawingBounds);
+    invalidateViewAndOutline(previousDrawingBounds);
   }
 
   void calculateDrawingBounds() {
-    if (outerCircleCenter == null) {
+    if (!frame.placed) {
       return;
     }
-    drawingBounds.left = (int) Math.max(0, outerCircleCenter[0] - outerCircleRadius);
-    drawingBounds.top = (int) Math.min(0, outerCircleCenter[1] - outerCircleRadius);
-    drawingBounds.right = (int) Math.min(getWidth(),
-        outerCircleCenter[0] + outerCircleRadius + CIRCLE_PADDING);
-    drawingBounds.bottom = (int) Math.min(getHeight(),
-        outerCircleCenter[1] + outerCircleRadius + CIRCLE_PADDING);
-  }
-
-  int getOuterCircleRadius(int centerX, int centerY, Rect textBounds, Rect targetBounds) {
-    final int targetCenterX = targetBounds.centerX();
-    final int targetCenterY = targetBounds.centerY();
-    final int expandedRadius = (int) (1.1f * TARGET_RADIUS);
-    final Rect expandedBounds = new Rect(targetCenterX, targetCenterY, targetCenterX, targetCenterY);
-    expandedBounds.inset(-expandedRadius, -expandedRadius);
-
-    final int textRadius = maxDistanceToPoints(centerX, centerY, textBounds);
-    final int targetRadius = maxDistanceToPoints(centerX, centerY, expandedBounds);
-    return Math.max(textRadius, targetRadius) + CIRCLE_PADDING;
-  }
-
-  Rect getTextBounds() {
-    final int totalTextHeight = getTotalTextHeight();
-    final int totalTextWidth = getTotalTextWidth();
-
-    final int possibleTop = targetBounds.centerY() - TARGET_RADIUS - TARGET_PADDING - totalTextHeight;
-    final int top;
-    if (possibleTop > topBoundary) {
-      top = possibleTop;
-    } else {
-      top = targetBounds.centerY() + TARGET_RADIUS + TARGET_PADDING;
-    }
-
-    final int relativeCenterDistance = (getWidth() / 2) - targetBounds.centerX();
-    final int bias = relativeCenterDistance < 0 ? -TEXT_POSITIONING_BIAS : TEXT_POSITIONING_BIAS;
-    final int left = Math.max(TEXT_PADDING, targetBounds.centerX() - bias - totalTextWidth);
-    final int right = Math.min(getWidth() - TEXT_PADDING, left + totalTextWidth);
-    return new Rect(left, top, right, top + totalTextHeight);
-  }
-
-  int[] getOuterCircleCenterPoint() {
-    if (inGutter(targetBounds.centerY())) {
-      return new int[]{targetBounds.centerX(), targetBounds.centerY()};
-    }
-
-    final int targetRadius = Math.max(targetBounds.width(), targetBounds.height()) / 2 + TARGET_PADDING;
-    final int totalTextHeight = getTotalTextHeight();
-
-    final boolean onTop = targetBounds.centerY() - TARGET_RADIUS - TARGET_PADDING - totalTextHeight > 0;
-
-    final int left = Math.min(textBounds.left, targetBounds.left - targetRadius);
-    final int right = Math.max(textBounds.right, targetBounds.right + targetRadius);
-    final int titleHeight = titleLayout == null ? 0 : titleLayout.getHeight();
-    final int centerY = onTop ?
-        targetBounds.centerY() - TARGET_RADIUS - TARGET_PADDING - totalTextHeight + titleHeight
-        :
-        targetBounds.centerY() + TARGET_RADIUS + TARGET_PADDING + titleHeight;
-
-    return new int[] { (left + right) / 2, centerY };
+    frame.drawingBounds(layoutWidth, layoutHeight, drawingBounds);
   }
 
-  int getTotalTextHeight() {
-    if (titleLayout == null) {
-      return 0;
-    }
-
-    if (descriptionLayout == null) {
-      return titleLayout.getHeight() + TEXT_SPACING;
-    }
-
-    if (confirmLabelLayout == null) {
-      return titleLayout.getHeight() + descriptionLayout.getHeight() + TEXT_SPACING;
-    }
-
-    return titleLayout.getHeight() + descriptionLayout.getHeight() + confirmLabelLayout.getHeight() + TEXT_SPACING * 2;
-  }
-
-  int getTotalTextWidth() {
-    if (titleLayout == null) {
-      return 0;
-    }
-
-    if (descriptionLayout == null) {
-      return titleLayout.getWidth();
-    }
-
-    int maxTitleDescriptionWidth = Math.max(titleLayout.getWidth(), descriptionLayout.getWidth());
-    if (confirmLabelLayout == null) {
-      return maxTitleDescriptionWidth;
-    }
-
-    return Math.max(maxTitleDescriptionWidth, confirmLabelLayout.getWidth());
-  }
-
-  boolean inGutter(int y) {
-    if (bottomBoundary > 0) {
-      return y < GUTTER_DIM || y > bottomBoundary - GUTTER_DIM;
-    } else {
-      return y < GUTTER_DIM || y > getHeight() - GUTTER_DIM;
+  void invalidateViewAndOutline(Rect bounds) {
+    if (surfaceRenderer != null) {
+      surfaceRenderer.requestRender();
+      return;
     }
-  }
 
-  int maxDistanceToPoints(int x1, int y1, Rect bounds) {
-    final double tl = distance(x1, y1, bounds.left, bounds.top);
-    final double tr = distance(x1, y1, bounds.right, bounds.top);
-    final double bl = distance(x1, y1, bounds.left, bounds.bottom);
-    final double br = distance(x1, y1, bounds.right, bounds.bottom);
-    return (int) Math.max(tl, Math.max(tr, Math.max(bl, br)));
-  }
-
-  double distance(int x1, int y1, int x2, int y2) {
-    return Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
-  }
-
-  void invalidateViewAndOutline(Rect bounds) {
     invalidate(bounds);
     if (outlineProvider != null && Build.VERSION.SDK_INT >= 21) {
       invalidateOutline();
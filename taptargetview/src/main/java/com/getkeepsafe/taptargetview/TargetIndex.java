@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+/**
+ * A bounding volume hierarchy over the hit areas of the targets in a {@link TapTargetOverlay},
+ * so that a touch only tests the few targets near it instead of every one of them.
+ * <p>
+ * Like {@link PromptGeometry}, this class only deals in primitives and has no Android
+ * dependencies. Bounds are passed as {@code left, top, right, bottom} quadruples, where left and
+ * top are inclusive and right and bottom exclusive, like {@link android.graphics.Rect}. Nodes are
+ * stored depth first in flat arrays, so queries neither allocate nor recurse.
+ */
+final class TargetIndex {
+  static final int LEAF_SIZE = 4;
+
+  // Enough for any tree of int sized inputs, as every level at least halves the items
+  private final int[] stack = new int[64];
+
+  private int[] itemBounds = new int[0];
+  private int[] items = new int[0];
+  private int count;
+
+  private int[] nodeBounds = new int[0];
+  // Range of items below each node, and the index of its second child or -1 for leaves. The first
+  // child of an inner node always directly follows it
+  private int[] nodeStart = new int[0];
+  private int[] nodeEnd = new int[0];
+  private int[] nodeSecond = new int[0];
+  private int nodes;
+
+  /** Rebuilds the index for {@code count} items, whose bounds are copied from {@code bounds} **/
+  void build(int[] bounds, int count) {
+    if (count < 0 || bounds.length < count * 4) {
+      throw new IllegalArgumentException("Given " + bounds.length + " bounds for " + count + " items");
+    }
+
+    this.count = count;
+    if (items.length < count) {
+      itemBounds = new int[count * 4];
+      items = new int[count];
+    }
+    System.arraycopy(bounds, 0, itemBounds, 0, count * 4);
+    for (int i = 0; i < count; ++i) {
+      items[i] = i;
+    }
+
+    final int maxNodes = Math.max(1, 2 * count);
+    if (nodeStart.length < maxNodes) {
+      nodeBounds = new int[maxNodes * 4];
+      nodeStart = new int[maxNodes];
+      nodeEnd = new int[maxNodes];
+      nodeSecond = new int[maxNodes];
+    }
+
+    nodes = 0;
+    if (count > 0) {
+      buildNode(0, count);
+    }
+  }
+
+  /** Returns the number of indexed items **/
+  int size() {
+    return count;
+  }
+
+  /**
+   * Writes the items whose bounds contain the given point into {@code out}, in no particular
+   * order, and returns how many there are. Items that do not fit into {@code out} are dropped
+   */
+  int query(int x, int y, int[] out) {
+    if (nodes == 0) {
+      return 0;
+    }
+
+    int found = 0;
+    int top = 0;
+    stack[top++] = 0;
+    while (top > 0) {
+      final int node = stack[--top];
+      if (!contains(nodeBounds, node, x, y)) {
+        continue;
+      }
+
+      final int second = nodeSecond[node];
+      if (second >= 0) {
+        stack[top++] = second;
+        stack[top++] = node + 1;
+        continue;
+      }
+
+      for (int i = nodeStart[node]; i < nodeEnd[node]; ++i) {
+        final int item = items[i];
+        if (contains(itemBounds, item, x, y) && found < out.length) {
+          out[found++] = item;
+        }
+      }
+    }
+
+    return found;
+  }
+
+  private int buildNode(int start, int end) {
+    final int node = nodes++;
+    nodeStart[node] = start;
+    nodeEnd[node] = end;
+    nodeSecond[node] = -1;
+
+    int left = Integer.MAX_VALUE;
+    int top = Integer.MAX_VALUE;
+    int right = Integer.MIN_VALUE;
+    int bottom = Integer.MIN_VALUE;
+    for (int i = start; i < end; ++i) {
+      final int offset = items[i] * 4;
+      left = Math.min(left, itemBounds[offset]);
+      top = Math.min(top, itemBounds[offset + 1]);
+      right = Math.max(right, itemBounds[offset + 2]);
+      bottom = Math.max(bottom, itemBounds[offset + 3]);
+    }
+
+    final int offset = node * 4;
+    nodeBounds[offset] = left;
+    nodeBounds[offset + 1] = top;
+    nodeBounds[offset + 2] = right;
+    nodeBounds[offset + 3] = bottom;
+
+    if (end - start <= LEAF_SIZE) {
+      return node;
+    }
+
+    // Split at the median center along the longer side
+    final int axis = right - left >= bottom - top ? 0 : 1;
+    final int middle = (start + end) >>> 1;
+    select(start, end - 1, middle, axis);
+
+    buildNode(start, middle);
+    nodeSecond[node] = buildNode(middle, end);
+    return node;
+  }
+
+  /** Partially sorts the items in {@code [low, high]} so that the k-th one is in place **/
+  private void select(int low, int high, int k, int axis) {
+    while (high > low) {
+      final long pivot = center(items[(low + high) >>> 1], axis);
+      int i = low;
+      int j = high;
+      while (i <= j) {
+        while (center(items[i], axis) < pivot) ++i;
+        while (center(items[j], axis) > pivot) --j;
+        if (i <= j) {
+          final int swap = items[i];
+          items[i++] = items[j];
+          items[j--] = swap;
+        }
+      }
+
+      if (k <= j) {
+        high = j;
+      } else if (k >= i) {
+        low = i;
+      } else {
+        return;
+      }
+    }
+  }
+
+  /** Returns twice the center of the item along the given axis **/
+  private long center(int item, int axis) {
+    final int offset = item * 4 + axis;
+    return (long) itemBounds[offset] + itemBounds[offset + 2];
+  }
+
+  private static boolean contains(int[] bounds, int index, int x, int y) {
+    final int offset = index * 4;
+    return x >= bounds[offset] && y >= bounds[offset + 1]
+        && x < bounds[offset + 2] && y < bounds[offset + 3];
+  }
+}
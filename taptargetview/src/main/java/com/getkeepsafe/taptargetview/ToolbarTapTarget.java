@@ -24,13 +24,20 @@ import android.support.v7.widget.Toolbar;
 import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Stack;
+import java.util.WeakHashMap;
 
 class ToolbarTapTarget extends ViewTapTarget {
+  // Views previously found in each toolbar, checked to still be valid before being reused.
+  // Only accessed on the main thread
+  private static final WeakHashMap<Object, ResolvedViews> resolvedViews = new WeakHashMap<>();
+
   ToolbarTapTarget(Toolbar toolbar, @IdRes int menuItemId,
                    CharSequence title, @Nullable CharSequence description,
                    @Nullable CharSequence confirmLabel) {
@@ -71,7 +78,18 @@ class ToolbarTapTarget extends ViewTapTarget {
 
   private static View findNavView(Object instance) {
     final ToolbarProxy toolbar = proxyOf(instance);
+    final ResolvedViews resolved = resolvedViewsOf(instance);
+    final View cached = resolved.navView(toolbar);
+    if (cached != null) {
+      return cached;
+    }
+
+    final View navView = searchNavView(toolbar);
+    resolved.navView = new WeakReference<>(navView);
+    return navView;
+  }
 
+  private static View searchNavView(ToolbarProxy toolbar) {
     // First we try to find the view via its content description
     final CharSequence currentDescription = toolbar.getNavigationContentDescription();
     final boolean hadContentDescription = !TextUtils.isEmpty(currentDescription);
@@ -118,13 +136,24 @@ class ToolbarTapTarget extends ViewTapTarget {
 
   private static View findOverflowView(Object instance) {
     final ToolbarProxy toolbar = proxyOf(instance);
+    final ResolvedViews resolved = resolvedViewsOf(instance);
+    final View cached = resolved.overflowView(toolbar);
+    if (cached != null) {
+      return cached;
+    }
+
+    final View overflowView = searchOverflowView(toolbar);
+    resolved.overflowView = new WeakReference<>(overflowView);
+    return overflowView;
+  }
 
+  private static View searchOverflowView(ToolbarProxy toolbar) {
     // First we try to find the overflow menu view via drawable matching
     final Drawable overflowDrawable = toolbar.getOverflowIcon();
     if (overflowDrawable != null) {
-      final Stack<ViewGroup> parents = new Stack<>();
+      final ArrayDeque<ViewGroup> parents = new ArrayDeque<>();
       parents.push((ViewGroup) toolbar.internalToolbar());
-      while (!parents.empty()) {
+      while (!parents.isEmpty()) {
         ViewGroup parent = parents.pop();
         final int size = parent.getChildCount();
         for (int i = 0; i < size; ++i) {
@@ -158,6 +187,62 @@ class ToolbarTapTarget extends ViewTapTarget {
     }
   }
 
+  private static ResolvedViews resolvedViewsOf(Object toolbar) {
+    ResolvedViews resolved = resolvedViews.get(toolbar);
+    if (resolved == null) {
+      resolved = new ResolvedViews();
+      resolvedViews.put(toolbar, resolved);
+    }
+    return resolved;
+  }
+
+  /**
+   * The navigation and overflow views last found in a toolbar. Held weakly, as views reference
+   * their toolbar and would otherwise keep it in the cache forever
+   */
+  private static class ResolvedViews {
+    @Nullable
+    WeakReference<View> navView;
+    @Nullable
+    WeakReference<View> overflowView;
+
+    @Nullable
+    View navView(ToolbarProxy toolbar) {
+      return validate(navView, toolbar, toolbar.getNavigationIcon());
+    }
+
+    @Nullable
+    View overflowView(ToolbarProxy toolbar) {
+      return validate(overflowView, toolbar, toolbar.getOverflowIcon());
+    }
+
+    /**
+     * Returns the referenced view if it is still part of the toolbar and, when it shows an icon,
+     * still shows the expected one. Otherwise the toolbar changed since and it has to be found again
+     */
+    @Nullable
+    private static View validate(@Nullable WeakReference<View> reference, ToolbarProxy toolbar,
+                                 @Nullable Drawable icon) {
+      final View view = reference != null ? reference.get() : null;
+      if (view == null) {
+        return null;
+      }
+
+      if (icon != null && view instanceof ImageView && ((ImageView) view).getDrawable() != icon) {
+        return null;
+      }
+
+      final Object root = toolbar.internalToolbar();
+      for (ViewParent parent = view.getParent(); parent != null; parent = parent.getParent()) {
+        if (parent == root) {
+          return view;
+        }
+      }
+
+      return null;
+    }
+  }
+
   private interface ToolbarProxy {
     CharSequence getNavigationContentDescription();
 
@@ -15,17 +15,42 @@
  */
 package com.getkeepsafe.taptargetview;
 
+import android.content.ContentResolver;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
+import android.provider.Settings;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DimenRes;
+import android.util.SparseIntArray;
 import android.util.TypedValue;
 
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
 class UiUtil {
+  // Attribute ids by package and name, as looking them up by name is slow
+  private static final HashMap<String, HashMap<String, Integer>> attrIds = new HashMap<>();
+  // Resolved attribute values of each theme, for the configuration they were resolved in
+  private static final WeakHashMap<Resources.Theme, ThemeValues> themeValues = new WeakHashMap<>();
+  private static final TypedValue typedValue = new TypedValue();
+
   UiUtil() {
   }
 
+  /** Returns the system's animator duration scale, which is 0 while animations are turned off **/
+  @SuppressWarnings("deprecation")
+  static float animatorDurationScale(Context context) {
+    final ContentResolver resolver = context.getContentResolver();
+    if (Build.VERSION.SDK_INT >= 17) {
+      return Settings.Global.getFloat(resolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1.0f);
+    } else if (Build.VERSION.SDK_INT >= 16) {
+      return Settings.System.getFloat(resolver, Settings.System.ANIMATOR_DURATION_SCALE, 1.0f);
+    }
+    return 1.0f;
+  }
+
   /** Returns the given pixel value in dp **/
   static int dp(Context context, int val) {
     return (int) TypedValue.applyDimension(
@@ -38,23 +63,57 @@ class UiUtil {
         TypedValue.COMPLEX_UNIT_SP, val, context.getResources().getDisplayMetrics());
   }
 
-  /** Returns the value of the desired theme integer attribute, or -1 if not found **/
+  /**
+   * Returns the value of the desired theme integer attribute, or -1 if not found. Values are
+   * cached per theme until the configuration of its resources changes
+   */
   static int themeIntAttr(Context context, String attr) {
     final Resources.Theme theme = context.getTheme();
     if (theme == null) {
       return -1;
     }
 
-    final TypedValue value = new TypedValue();
-    final int id = context.getResources().getIdentifier(attr, "attr", context.getPackageName());
+    synchronized (themeValues) {
+      final int id = attrId(context, attr);
+      if (id == 0) {
+        // Not found
+        return -1;
+      }
 
-    if (id == 0) {
-      // Not found
-      return -1;
+      final Configuration config = context.getResources().getConfiguration();
+      ThemeValues values = themeValues.get(theme);
+      if (values == null || !values.config.equals(config)) {
+        values = new ThemeValues(config);
+        themeValues.put(theme, values);
+      }
+
+      final int index = values.data.indexOfKey(id);
+      if (index >= 0) {
+        return values.data.valueAt(index);
+      }
+
+      typedValue.data = 0;
+      theme.resolveAttribute(id, typedValue, true);
+      values.data.put(id, typedValue.data);
+      return typedValue.data;
+    }
+  }
+
+  /** Returns the id of the given attribute in the context's package, or 0 if not found **/
+  private static int attrId(Context context, String attr) {
+    final String packageName = context.getPackageName();
+    HashMap<String, Integer> ids = attrIds.get(packageName);
+    if (ids == null) {
+      ids = new HashMap<>();
+      attrIds.put(packageName, ids);
     }
 
-    theme.resolveAttribute(id, value, true);
-    return value.data;
+    Integer id = ids.get(attr);
+    if (id == null) {
+      id = context.getResources().getIdentifier(attr, "attr", packageName);
+      ids.put(attr, id);
+    }
+    return id;
   }
 
   /** Modifies the alpha value of the given ARGB color **/
@@ -67,4 +126,14 @@ class UiUtil {
 
     return ((int) ((argb >>> 24) * alpha) << 24) | (argb & 0x00FFFFFF);
   }
+
+  private static class ThemeValues {
+    final Configuration config;
+    final SparseIntArray data = new SparseIntArray();
+
+    ThemeValues(Configuration config) {
+      // Copied, as resources update their configuration in place
+      this.config = new Configuration(config);
+    }
+  }
 }
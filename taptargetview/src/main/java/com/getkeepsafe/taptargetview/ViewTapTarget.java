@@ -24,6 +24,7 @@ import android.view.View;
 
 class ViewTapTarget extends TapTarget {
   final View view;
+  private final int[] location = new int[2];
 
   ViewTapTarget(View view, CharSequence title, @Nullable CharSequence description, @Nullable CharSequence confirmLabel) {
     super(title, description, confirmLabel);
@@ -56,4 +57,14 @@ class ViewTapTarget extends TapTarget {
       }
     });
   }
+
+  @Override
+  boolean readBounds(Rect out) {
+    // A detached view, e.g. a recycled list row, has no meaningful position
+    if (view.getWindowToken() == null) return false;
+
+    view.getLocationOnScreen(location);
+    out.set(location[0], location[1], location[0] + view.getWidth(), location[1] + view.getHeight());
+    return true;
+  }
 }
@@ -17,6 +17,7 @@ package com.getkeepsafe.taptargetview;
 
 import android.os.Build;
 import android.support.v4.view.ViewCompat;
+import android.view.KeyEvent;
 import android.view.View;
 import android.view.ViewManager;
 import android.view.ViewTreeObserver;
@@ -78,4 +79,19 @@ class ViewUtil {
       // implementation. See b.android.com/77639, #121 and #49
     }
   }
+
+  /** Starts tracking the given key press if it is the back key, and returns whether it was **/
+  static boolean trackBackKey(int keyCode, KeyEvent event) {
+    if (keyCode != KeyEvent.KEYCODE_BACK) {
+      return false;
+    }
+
+    event.startTracking();
+    return true;
+  }
+
+  /** Returns whether the given key release completes a tracked back key press **/
+  static boolean isBackKeyRelease(int keyCode, KeyEvent event) {
+    return keyCode == KeyEvent.KEYCODE_BACK && event.isTracking() && !event.isCanceled();
+  }
 }
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures the bytes allocated while showing, animating and dismissing prompts and fails when a
+ * phase exceeds its committed budget. Budgets live in {@code allocation-budgets.properties} next
+ * to this test, keyed by phase name.
+ * <p>
+ * Robolectric's shadows allocate on top of the library, so the budgets are only comparable
+ * between runs of this test and not with what a device allocates.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class AllocationBudgetTest {
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 1920;
+  private static final int FRAME_TIME = 16;
+  private static final int WARMUP_RUNS = 5;
+  private static final int MEASURED_RUNS = 5;
+
+  /** A measured piece of work, with set up and tear down that are not measured **/
+  abstract static class Phase {
+    final String name;
+
+    Phase(String name) {
+      this.name = name;
+    }
+
+    void setUp() {
+    }
+
+    abstract void run();
+
+    void tearDown() {
+    }
+  }
+
+  private Activity activity;
+  private ViewGroup decor;
+  private ManualAnimationClock clock;
+  private boolean dismissed;
+
+  @Before
+  public void setUp() {
+    activity = Robolectric.setupActivity(Activity.class);
+    decor = (ViewGroup) activity.getWindow().getDecorView();
+    clock = new ManualAnimationClock();
+  }
+
+  @Test
+  public void staysWithinBudgets() throws IOException {
+    final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    assumeTrue("Thread allocation accounting is not supported by this JVM",
+        bean instanceof com.sun.management.ThreadMXBean);
+    final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue("Thread allocation accounting is not supported by this JVM",
+        threads.isThreadAllocatedMemorySupported());
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    final Properties budgets = loadBudgets();
+    final long overhead = measure(threads, new Phase("overhead") {
+      @Override
+      void run() {
+      }
+    });
+
+    final StringBuilder failures = new StringBuilder();
+    for (final Phase phase : phases()) {
+      final String budgetValue = budgets.getProperty(phase.name);
+      if (budgetValue == null) {
+        fail("No allocation budget committed for phase " + phase.name);
+      }
+
+      final long budget = Long.parseLong(budgetValue.trim());
+      final long allocated = Math.max(0, measure(threads, phase) - overhead);
+      final boolean overBudget = allocated > budget;
+      final String line = String.format("%-24s %10d bytes (budget %d)", phase.name, allocated, budget);
+      System.out.println(line + (overBudget ? "  OVER BUDGET" : ""));
+      if (overBudget) {
+        failures.append('\n').append(line);
+      }
+    }
+
+    if (failures.length() > 0) {
+      fail("Over the allocation budget:" + failures);
+    }
+  }
+
+  /**
+   * Returns the fewest bytes allocated across several runs of the given phase. Work the phase left
+   * posted to the main looper is run between runs, so that its queue doesn't grow into later ones
+   */
+  static long measure(com.sun.management.ThreadMXBean threads, Phase phase) {
+    final long threadId = Thread.currentThread().getId();
+    for (int i = 0; i < WARMUP_RUNS; ++i) {
+      phase.setUp();
+      phase.run();
+      phase.tearDown();
+      Robolectric.flushForegroundThreadScheduler();
+    }
+
+    long fewest = Long.MAX_VALUE;
+    for (int i = 0; i < MEASURED_RUNS; ++i) {
+      phase.setUp();
+      final long before = threads.getThreadAllocatedBytes(threadId);
+      phase.run();
+      final long after = threads.getThreadAllocatedBytes(threadId);
+      phase.tearDown();
+      Robolectric.flushForegroundThreadScheduler();
+      fewest = Math.min(fewest, after - before);
+    }
+    return fewest;
+  }
+
+  List<Phase> phases() {
+    final List<Phase> phases = new ArrayList<>();
+    phases.add(new Phase("construction") {
+      @Override
+      void run() {
+        new TapTargetView(activity, decor, null, target(), null);
+      }
+    });
+    // Adding the view runs its first layout right away under Robolectric
+    phases.add(new ViewPhase("show") {
+      @Override
+      void run() {
+        show();
+      }
+    });
+    phases.add(new ViewPhase("relayout") {
+      @Override
+      void setUp() {
+        show();
+      }
+
+      @Override
+      void run() {
+        view.getViewTreeObserver().dispatchOnGlobalLayout();
+      }
+    });
+    phases.add(new ViewPhase("pulse.100frames") {
+      @Override
+      void setUp() {
+        show();
+        view.getViewTreeObserver().dispatchOnGlobalLayout();
+        while (!"pulse".equals(view.animationPhase())) {
+          clock.advanceBy(FRAME_TIME);
+        }
+      }
+
+      @Override
+      void run() {
+        for (int i = 0; i < 100; ++i) {
+          clock.advanceBy(FRAME_TIME);
+        }
+      }
+    });
+    phases.add(new ViewPhase("dismiss") {
+      @Override
+      void setUp() {
+        show();
+        view.getViewTreeObserver().dispatchOnGlobalLayout();
+        while (!"pulse".equals(view.animationPhase())) {
+          clock.advanceBy(FRAME_TIME);
+        }
+      }
+
+      @Override
+      void run() {
+        view.dismiss(false);
+        while (!dismissed) {
+          clock.advanceBy(FRAME_TIME);
+        }
+      }
+    });
+    phases.add(new Phase("sequence.10steps") {
+      @Override
+      void run() {
+        final TapTargetSequence sequence = new TapTargetSequence(activity);
+        for (int i = 0; i < 10; ++i) {
+          sequence.target(target());
+        }
+        sequence.start();
+
+        for (int i = 0; i < 10; ++i) {
+          final TapTargetView view = currentView();
+          layout();
+          view.getViewTreeObserver().dispatchOnGlobalLayout();
+          while (!"pulse".equals(view.animationPhase())) {
+            clock.advanceBy(FRAME_TIME);
+          }
+          view.listener.onTargetClick(view);
+        }
+
+        while (currentView() != null) {
+          clock.advanceBy(FRAME_TIME);
+        }
+      }
+    });
+    return phases;
+  }
+
+  /** A phase that works with a prompt shown during set up and removed during tear down **/
+  abstract class ViewPhase extends Phase {
+    TapTargetView view;
+
+    ViewPhase(String name) {
+      super(name);
+    }
+
+    void show() {
+      dismissed = false;
+      view = TapTargetView.showFor(activity, target(), new TapTargetView.Listener() {
+        @Override
+        public void onTargetDismissed(TapTargetView view, boolean userInitiated) {
+          dismissed = true;
+        }
+      });
+      layout();
+    }
+
+    @Override
+    void tearDown() {
+      ViewUtil.removeView(decor, view);
+      view = null;
+    }
+  }
+
+  TapTarget target() {
+    return TapTarget.forBounds(new Rect(100, 100, 200, 200), "Title", "Description", null)
+        .animationClock(clock);
+  }
+
+  void layout() {
+    decor.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    decor.layout(0, 0, WIDTH, HEIGHT);
+  }
+
+  /** Returns the prompt at the top of the decor view, if any **/
+  TapTargetView currentView() {
+    for (int i = decor.getChildCount() - 1; i >= 0; --i) {
+      final View child = decor.getChildAt(i);
+      if (child instanceof TapTargetView) {
+        return (TapTargetView) child;
+      }
+    }
+    return null;
+  }
+
+  static Properties loadBudgets() throws IOException {
+    final InputStream input =
+        AllocationBudgetTest.class.getClassLoader().getResourceAsStream("allocation-budgets.properties");
+    assertNotNull("allocation-budgets.properties is missing", input);
+
+    final Properties budgets = new Properties();
+    try {
+      budgets.load(input);
+    } finally {
+      input.close();
+    }
+    return budgets;
+  }
+}
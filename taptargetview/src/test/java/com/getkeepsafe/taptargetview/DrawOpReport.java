@@ -0,0 +1,405 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Accounts for the drawing operations a {@link TapTargetView} issues per frame, grouped by
+ * animation phase (expand, pulse, dismiss) and by the options of its {@link TapTarget}.
+ * <p>
+ * Frames are recorded into a counting canvas that doesn't rasterize anything, so recording is
+ * cheap enough to run under Robolectric or on a device for every animation step. The results can
+ * be exported as JSON via {@link #toJson()} to be compared between builds.
+ */
+class DrawOpReport {
+  private final CountingCanvas canvas = new CountingCanvas();
+  private final Map<String, Counts> groups = new LinkedHashMap<>();
+
+  /** Draws the current frame of the given view and records the operations it issued **/
+  public void recordFrame(TapTargetView view) {
+    if (!view.frame.placed) {
+      return;
+    }
+
+    final String options = optionsOf(view);
+    final String phase = view.animationPhase();
+    final String key = options + '|' + phase;
+    Counts counts = groups.get(key);
+    if (counts == null) {
+      counts = new Counts(options, phase);
+      groups.put(key, counts);
+    }
+
+    canvas.begin(counts, view.layoutWidth, view.layoutHeight);
+    final int saveCount = canvas.save();
+    try {
+      view.drawFrame(canvas);
+    } finally {
+      canvas.restoreToCount(saveCount);
+      canvas.end();
+    }
+    ++counts.frames;
+  }
+
+  /** Discards all recorded frames **/
+  public void clear() {
+    groups.clear();
+  }
+
+  /**
+   * Returns the recorded counts as JSON, in the form of
+   * <code>{"groups": [{"options": ..., "phase": ..., "frames": ..., "draws": ..., ...}]}</code>
+   */
+  public JSONObject toJson() {
+    try {
+      final JSONArray array = new JSONArray();
+      for (final Counts counts : groups.values()) {
+        array.put(new JSONObject()
+            .put("options", counts.options)
+            .put("phase", counts.phase)
+            .put("frames", counts.frames)
+            .put("draws", counts.draws)
+            .put("bitmapDraws", counts.bitmapDraws)
+            .put("textDraws", counts.textDraws)
+            .put("clips", counts.clips)
+            .put("saves", counts.saves)
+            .put("restores", counts.restores));
+      }
+      return new JSONObject().put("groups", array);
+    } catch (JSONException e) {
+      // Only thrown for non-finite numbers, which we never put
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toJson().toString();
+  }
+
+  static String optionsOf(TapTargetView view) {
+    final TapTarget target = view.target;
+    return "renderer=" + view.renderer.getClass().getSimpleName()
+        + ",shadow=" + target.drawShadow
+        + ",outline=" + (view.outlineProvider != null)
+        + ",pulse=" + target.targetPulseEnabled
+        + ",tint=" + target.tintTarget
+        + ",transparent=" + target.transparentTarget
+        + ",dim=" + (view.dimColor != -1)
+        + ",icon=" + (target.icon != null)
+        + ",description=" + (target.description != null)
+        + ",confirmLabel=" + (target.confirmLabel != null);
+  }
+
+  static class Counts {
+    final String options;
+    final String phase;
+    long frames;
+    long draws;
+    long bitmapDraws;
+    long textDraws;
+    long clips;
+    long saves;
+    long restores;
+
+    Counts(String options, String phase) {
+      this.options = options;
+      this.phase = phase;
+    }
+  }
+
+  /**
+   * A canvas without a backing bitmap that counts draw calls instead of performing them. Save,
+   * restore, clip and transform calls are still applied so nested drawing code behaves as usual.
+   * The save count is tracked here rather than read back, as not every canvas implementation
+   * keeps one (Robolectric's doesn't).
+   */
+  static class CountingCanvas extends Canvas {
+    Counts counts;
+    int width;
+    int height;
+    int saveCount = 1;
+
+    void begin(Counts counts, int width, int height) {
+      this.counts = counts;
+      this.width = width;
+      this.height = height;
+    }
+
+    void end() {
+      counts = null;
+    }
+
+    private void draw() {
+      if (counts != null) ++counts.draws;
+    }
+
+    private void drawBitmap() {
+      if (counts != null) {
+        ++counts.draws;
+        ++counts.bitmapDraws;
+      }
+    }
+
+    private void drawText() {
+      if (counts != null) {
+        ++counts.draws;
+        ++counts.textDraws;
+      }
+    }
+
+    private void clip() {
+      if (counts != null) ++counts.clips;
+    }
+
+    @Override
+    public boolean getClipBounds(Rect bounds) {
+      // Text layouts only draw the lines within the clip, which would be empty without a bitmap
+      bounds.set(0, 0, width, height);
+      return true;
+    }
+
+    /** Counts a save and returns the save count from before it, like the save methods do **/
+    private int countSave() {
+      if (counts != null) ++counts.saves;
+      return saveCount++;
+    }
+
+    @Override
+    public int getSaveCount() {
+      return saveCount;
+    }
+
+    @Override
+    public int save() {
+      super.save();
+      return countSave();
+    }
+
+    @Override
+    public int save(int saveFlags) {
+      super.save(saveFlags);
+      return countSave();
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint, int saveFlags) {
+      super.saveLayer(bounds, paint, saveFlags);
+      return countSave();
+    }
+
+    @Override
+    public int saveLayerAlpha(RectF bounds, int alpha, int saveFlags) {
+      super.saveLayerAlpha(bounds, alpha, saveFlags);
+      return countSave();
+    }
+
+    @Override
+    public void restore() {
+      if (saveCount <= 1) throw new IllegalStateException("Underflow in restore");
+      if (counts != null) ++counts.restores;
+      --saveCount;
+      super.restore();
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+      if (saveCount < 1) throw new IllegalArgumentException("Underflow in restoreToCount");
+      if (this.saveCount > saveCount) {
+        if (counts != null) counts.restores += this.saveCount - saveCount;
+        this.saveCount = saveCount;
+      }
+      super.restoreToCount(saveCount);
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+      clip();
+      return super.clipRect(rect);
+    }
+
+    @Override
+    public boolean clipRect(RectF rect) {
+      clip();
+      return super.clipRect(rect);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+      clip();
+      return super.clipRect(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+      clip();
+      return super.clipRect(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipRect(Rect rect, Region.Op op) {
+      clip();
+      return super.clipRect(rect, op);
+    }
+
+    @Override
+    public boolean clipRect(RectF rect, Region.Op op) {
+      clip();
+      return super.clipRect(rect, op);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom, Region.Op op) {
+      clip();
+      return super.clipRect(left, top, right, bottom, op);
+    }
+
+    @Override
+    public boolean clipPath(Path path) {
+      clip();
+      return super.clipPath(path);
+    }
+
+    @Override
+    public boolean clipPath(Path path, Region.Op op) {
+      clip();
+      return super.clipPath(path, op);
+    }
+
+    @Override
+    public void drawColor(int color) {
+      draw();
+    }
+
+    @Override
+    public void drawColor(int color, PorterDuff.Mode mode) {
+      draw();
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+      draw();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+      drawBitmap();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+      drawBitmap();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+      drawBitmap();
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+      drawBitmap();
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+      drawText();
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+      drawText();
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+      drawText();
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+      drawText();
+    }
+
+    @Override
+    public void drawTextRun(char[] text, int index, int count, int contextIndex, int contextCount,
+                            float x, float y, boolean isRtl, Paint paint) {
+      drawText();
+    }
+
+    @Override
+    public void drawTextRun(CharSequence text, int start, int end, int contextStart,
+                            int contextEnd, float x, float y, boolean isRtl, Paint paint) {
+      drawText();
+    }
+  }
+}
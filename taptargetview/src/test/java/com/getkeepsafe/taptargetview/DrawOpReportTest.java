@@ -0,0 +1,150 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.view.View;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Steps a prompt through its expand, pulse and dismiss animations and records the drawing
+ * operations of every frame. The report is written to build/reports/draw-ops.json.
+ * <p>
+ * Robolectric measures all text as zero lines high, so text layouts draw nothing here and the
+ * text draw counts only mean something when the report is recorded on a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class DrawOpReportTest {
+  private static final int WIDTH = 1080;
+  private static final int HEIGHT = 1920;
+  private static final int FRAME_TIME = 16;
+
+  private Activity activity;
+  private ManualAnimationClock clock;
+  private DrawOpReport report;
+  private boolean dismissed;
+
+  @Before
+  public void setUp() {
+    activity = Robolectric.setupActivity(Activity.class);
+    clock = new ManualAnimationClock();
+    report = new DrawOpReport();
+  }
+
+  @Test
+  public void recordsEveryPhase() throws Exception {
+    record(target());
+    record(target().drawShadow(true).tintTarget(false));
+    record(target().targetPulseEnabled(false).renderer(TapTargetRenderer.FLAT));
+
+    final JSONObject json = report.toJson();
+    final JSONArray groups = json.getJSONArray("groups");
+    boolean expand = false;
+    boolean pulse = false;
+    boolean dismiss = false;
+    for (int i = 0; i < groups.length(); ++i) {
+      final JSONObject group = groups.getJSONObject(i);
+      assertTrue(group.getInt("frames") > 0);
+      assertTrue(group.getInt("draws") > 0);
+      expand |= "expand".equals(group.getString("phase"));
+      pulse |= "pulse".equals(group.getString("phase"));
+      dismiss |= "dismiss".equals(group.getString("phase"));
+    }
+    assertTrue(expand && pulse && dismiss);
+    assertEquals(9, groups.length());
+
+    write(json);
+  }
+
+  private TapTarget target() {
+    return TapTarget.forBounds(new Rect(100, 100, 200, 200), "Title", "Description", null)
+        .animationClock(clock);
+  }
+
+  /** Shows the given target and records its frames until its dismiss animation has ended **/
+  private void record(TapTarget target) {
+    dismissed = false;
+    final TapTargetView view = TapTargetView.showFor(activity, target, new TapTargetView.Listener() {
+      @Override
+      public void onTargetDismissed(TapTargetView view, boolean userInitiated) {
+        dismissed = true;
+      }
+    });
+
+    final View decor = activity.getWindow().getDecorView();
+    decor.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+    decor.layout(0, 0, WIDTH, HEIGHT);
+    view.getViewTreeObserver().dispatchOnGlobalLayout();
+    assertEquals("expand", view.animationPhase());
+
+    int steps = 0;
+    while ("expand".equals(view.animationPhase())) {
+      step(view);
+      assertTrue("Expand animation did not end", ++steps < 100);
+    }
+
+    for (int i = 0; i < 60; ++i) {
+      step(view);
+    }
+
+    view.dismiss(false);
+    steps = 0;
+    while (!dismissed) {
+      step(view);
+      assertTrue("Dismiss animation did not end", ++steps < 100);
+    }
+  }
+
+  private void step(TapTargetView view) {
+    clock.advanceBy(FRAME_TIME);
+    if (!dismissed) {
+      report.recordFrame(view);
+    }
+  }
+
+  private static void write(JSONObject json) throws Exception {
+    final File file = new File("build/reports/draw-ops.json");
+    if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+      throw new IOException("Could not create " + file.getParentFile());
+    }
+
+    final Writer writer = new FileWriter(file);
+    try {
+      writer.write(json.toString(2));
+    } finally {
+      writer.close();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Round trips the store's file format through separate store instances **/
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class TapTargetStoreTest {
+  private static final long TIMEOUT = 5000;
+  // Looks like an id generated by aapt, far above IdSet#DENSE_LIMIT
+  private static final int RESOURCE_ID = 0x7f0a0001;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void roundTripsSmallAndLargeIds() throws Exception {
+    final File file = folder.newFile();
+    final TapTargetStore store = load(file);
+    store.markSeen(3);
+    store.markSeen(RESOURCE_ID);
+    store.markCompleted(RESOURCE_ID + 1);
+    store.markSeen(Integer.MAX_VALUE);
+    store.setProgress(5, 2);
+    awaitLength(file, 5 * TapTargetStore.RECORD_SIZE);
+
+    final TapTargetStore reloaded = load(file);
+    assertTrue(reloaded.isSeen(3));
+    assertFalse(reloaded.isCompleted(3));
+    assertTrue(reloaded.isSeen(RESOURCE_ID));
+    assertFalse(reloaded.isCompleted(RESOURCE_ID));
+    assertTrue(reloaded.isSeen(RESOURCE_ID + 1));
+    assertTrue(reloaded.isCompleted(RESOURCE_ID + 1));
+    assertTrue(reloaded.isSeen(Integer.MAX_VALUE));
+    assertFalse(reloaded.isSeen(4));
+    assertFalse(reloaded.isSeen(RESOURCE_ID + 2));
+    assertEquals(2, reloaded.progress(5));
+  }
+
+  @Test
+  public void dropsTrailingPartialRecord() throws Exception {
+    final File file = folder.newFile();
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(record(TapTargetStore.RECORD_SEEN, 1, 0));
+      out.write(record(TapTargetStore.RECORD_COMPLETED, RESOURCE_ID, 0));
+      // An interrupted write
+      out.write(new byte[] {TapTargetStore.RECORD_SEEN, 0, 0});
+    } finally {
+      out.close();
+    }
+
+    final TapTargetStore store = load(file);
+    assertTrue(store.isSeen(1));
+    assertTrue(store.isCompleted(RESOURCE_ID));
+    // The file is rewritten without the partial record, so the next one lines up again
+    awaitLength(file, 2 * TapTargetStore.RECORD_SIZE);
+    store.markSeen(2);
+    awaitLength(file, 3 * TapTargetStore.RECORD_SIZE);
+
+    final TapTargetStore reloaded = load(file);
+    assertTrue(reloaded.isSeen(1));
+    assertTrue(reloaded.isSeen(2));
+    assertTrue(reloaded.isCompleted(RESOURCE_ID));
+  }
+
+  @Test
+  public void compactsSupersededRecords() throws Exception {
+    final File file = folder.newFile();
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      for (int i = 0; i < 200; ++i) {
+        out.write(record(TapTargetStore.RECORD_PROGRESS, 7, i));
+      }
+      out.write(record(TapTargetStore.RECORD_SEEN, 0, 0));
+      out.write(record(TapTargetStore.RECORD_CLEAR, 0, 0));
+      out.write(record(TapTargetStore.RECORD_SEEN, RESOURCE_ID, 0));
+      out.write(record(TapTargetStore.RECORD_PROGRESS, 7, 3));
+    } finally {
+      out.close();
+    }
+
+    load(file);
+    awaitLength(file, 2 * TapTargetStore.RECORD_SIZE);
+
+    final TapTargetStore reloaded = load(file);
+    assertFalse(reloaded.isSeen(0));
+    assertTrue(reloaded.isSeen(RESOURCE_ID));
+    assertEquals(3, reloaded.progress(7));
+  }
+
+  @Test
+  public void ignoresCorruptRecords() throws Exception {
+    final File file = folder.newFile();
+    final OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(record(TapTargetStore.RECORD_SEEN, -5, 0));
+      out.write(record((byte) 42, 1, 1));
+      out.write(record(TapTargetStore.RECORD_SEEN, 9, 0));
+    } finally {
+      out.close();
+    }
+
+    final TapTargetStore store = load(file);
+    assertFalse(store.isSeen(1));
+    assertTrue(store.isSeen(9));
+  }
+
+  @Test
+  public void keepsClearMadeBeforeLoading() throws Exception {
+    final File file = folder.newFile();
+    final TapTargetStore old = load(file);
+    old.markSeen(1);
+    old.markCompleted(RESOURCE_ID);
+    old.setProgress(5, 2);
+    old.close();
+    awaitLength(file, 3 * TapTargetStore.RECORD_SIZE);
+
+    // Hold the load back until the clear has been made
+    final CountDownLatch loadAllowed = new CountDownLatch(1);
+    final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          loadAllowed.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    });
+    final TapTargetStore store = new TapTargetStore(file, executor);
+    store.clear();
+    store.markSeen(2);
+    assertFalse(store.isReady());
+    loadAllowed.countDown();
+    awaitReady(store);
+
+    assertFalse(store.isSeen(1));
+    assertFalse(store.isSeen(RESOURCE_ID));
+    assertFalse(store.isCompleted(RESOURCE_ID));
+    assertEquals(0, store.progress(5));
+    assertTrue(store.isSeen(2));
+    store.close();
+    awaitLength(file, 5 * TapTargetStore.RECORD_SIZE);
+
+    final TapTargetStore reloaded = load(file);
+    assertFalse(reloaded.isSeen(1));
+    assertFalse(reloaded.isSeen(RESOURCE_ID));
+    assertTrue(reloaded.isSeen(2));
+  }
+
+  private static TapTargetStore load(File file) throws InterruptedException {
+    return awaitReady(new TapTargetStore(file));
+  }
+
+  private static TapTargetStore awaitReady(TapTargetStore store) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (!store.isReady()) {
+      if (System.currentTimeMillis() > deadline) fail("Store did not load");
+      Thread.sleep(10);
+    }
+    return store;
+  }
+
+  /** Waits for the background writes to bring the file to the given length **/
+  private static void awaitLength(File file, long length) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TIMEOUT;
+    while (file.length() != length) {
+      if (System.currentTimeMillis() > deadline) {
+        fail("Expected " + length + " bytes but the file has " + file.length());
+      }
+      Thread.sleep(10);
+    }
+  }
+
+  private static byte[] record(byte type, int key, int value) {
+    return new byte[] {type,
+        (byte) (key >>> 24), (byte) (key >>> 16), (byte) (key >>> 8), (byte) key,
+        (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright 2016 Keepsafe Software, Inc.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.getkeepsafe.taptargetview;
+
+import android.app.Activity;
+import android.util.Xml;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Parses tour definitions with the platform's pull parser, as they would be read from raw XML **/
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 25, manifest = Config.NONE)
+public class TapTargetTourTest {
+  private static final int VIEW_ID = 42;
+
+  @Test
+  public void readsRequestedTour() throws Exception {
+    final TapTargetTour tour = parse(""
+        + "<tours>"
+        + "  <tour name=\"other\"><unknown /></tour>"
+        + "  <tour name=\"onboarding\">"
+        + "    <target view=\"@id/fab\" title=\"Title\" description=\"Description\" id=\"2\" />"
+        + "    <target toolbar=\"@id/toolbar\" role=\"navigation\" title=\"Menu\" cancelable=\"false\" />"
+        + "  </tour>"
+        + "</tours>", "onboarding");
+
+    assertEquals("onboarding", tour.name());
+    assertEquals(2, tour.size());
+
+    final TapTargetTour.Step first = tour.steps.get(0);
+    assertEquals("@id/fab", first.view);
+    assertEquals("Title", first.title);
+    assertEquals("Description", first.description);
+    assertEquals(2, first.id);
+    assertTrue(first.cancelable);
+
+    final TapTargetTour.Step second = tour.steps.get(1);
+    assertEquals("@id/toolbar", second.toolbar);
+    assertEquals(TapTargetTour.ROLE_NAVIGATION, second.role);
+    assertEquals(-1, second.id);
+    assertFalse(second.cancelable);
+  }
+
+  @Test
+  public void rejectsInvalidTargets() throws Exception {
+    assertInvalid("<target view=\"@id/fab\" />");
+    assertInvalid("<target title=\"Title\" />");
+    assertInvalid("<target view=\"fab\" title=\"Title\" />");
+    assertInvalid("<target toolbar=\"@id/toolbar\" title=\"Title\" />");
+    assertInvalid("<target toolbar=\"@id/toolbar\" role=\"search\" title=\"Title\" />");
+    assertInvalid("<target view=\"@id/fab\" title=\"Title\" id=\"two\" />");
+    assertInvalid("<step view=\"@id/fab\" title=\"Title\" />");
+  }
+
+  @Test
+  public void onlyTreatsStringReferencesAsTextReferences() {
+    assertTrue(TapTargetTour.isTextReference("@string/title"));
+    assertTrue(TapTargetTour.isTextReference("@" + android.R.string.ok));
+    assertFalse(TapTargetTour.isTextReference("@foo/bar"));
+    assertFalse(TapTargetTour.isTextReference("@id/fab"));
+    assertFalse(TapTargetTour.isTextReference("@string/"));
+    assertFalse(TapTargetTour.isTextReference("@"));
+    assertFalse(TapTargetTour.isTextReference("Title"));
+    assertFalse(TapTargetTour.isTextReference(null));
+  }
+
+  @Test
+  public void resolvesTextsWhenCreatingTargets() throws Exception {
+    final Activity activity = Robolectric.setupActivity(Activity.class);
+    final View view = new View(activity);
+    view.setId(VIEW_ID);
+    activity.setContentView(view);
+
+    final TapTargetTour tour = parse(""
+        + "<tours><tour name=\"texts\">"
+        + "  <target view=\"@" + VIEW_ID + "\" title=\"@foo/bar\""
+        + "      description=\"@string/does_not_exist\" confirmLabel=\"@" + android.R.string.ok + "\" />"
+        + "</tour></tours>", "texts");
+
+    final TapTarget target = tour.steps.get(0).create(activity);
+    assertNotNull(target);
+    assertEquals("@foo/bar", target.title.toString());
+    assertEquals("@string/does_not_exist", target.description.toString());
+    assertEquals(activity.getText(android.R.string.ok).toString(), target.confirmLabel.toString());
+  }
+
+  private static TapTargetTour parse(String xml, String name) throws Exception {
+    final XmlPullParser parser = Xml.newPullParser();
+    parser.setInput(new StringReader(xml));
+    return TapTargetTour.parse(parser, name);
+  }
+
+  private static void assertInvalid(String target) throws Exception {
+    try {
+      parse("<tours><tour name=\"tour\">" + target + "</tour></tours>", "tour");
+      fail("Expected " + target + " to be rejected");
+    } catch (XmlPullParserException expected) {
+      // Expected
+    }
+  }
+}